@@ -1,5 +1,7 @@
 plugins {
     id("java")
+    id("application")
+    id("me.champeau.jmh") version "0.7.2"
 }
 
 group = "me.cire3"
@@ -16,6 +18,35 @@ dependencies {
     testImplementation("org.junit.jupiter:junit-jupiter")
 }
 
+// the SIMD kernels are compiled against jdk.incubator.vector, but only used at runtime when the module is
+// added to the boot layer; pass -Psimd=false to run the scalar kernels instead
+val simdJvmArgs = if (providers.gradleProperty("simd").getOrElse("true").toBoolean()) {
+    listOf("--add-modules=jdk.incubator.vector")
+} else {
+    listOf("-Dapcsp.simd=false")
+}
+
+// off-heap pixel planes (--buffers native|mapped) use the JDK 17 incubating foreign memory API
+val foreignJvmArgs = listOf("--add-modules=jdk.incubator.foreign")
+
+tasks.withType<JavaCompile>().configureEach {
+    options.compilerArgs.addAll(listOf("--add-modules=jdk.incubator.vector", "--add-modules=jdk.incubator.foreign"))
+}
+
+application {
+    mainClass.set("me.cire3.apcsp.create.Main")
+    applicationDefaultJvmArgs = simdJvmArgs + foreignJvmArgs
+}
+
+// ./gradlew jmh writes build/results/jmh/results.json, diff it between builds to spot regressions
+jmh {
+    jmhVersion.set("1.37")
+    resultFormat.set("JSON")
+    resultsFile.set(layout.buildDirectory.file("results/jmh/results.json"))
+    jvmArgsAppend.set(simdJvmArgs + foreignJvmArgs)
+}
+
 tasks.test {
     useJUnitPlatform()
-}
\ No newline at end of file
+    jvmArgs(simdJvmArgs + foreignJvmArgs)
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2025 cire3. All Rights Reserved.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package me.cire3.apcsp.create.bench;
+
+import me.cire3.apcsp.create.simd.Kernels;
+import me.cire3.apcsp.create.simd.ScalarKernels;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// compositing one 4096-pixel row: the per-pixel reference, the scalar row kernel and whichever kernel is active
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ApplyNoiseBenchmark {
+    static final int PIXELS = 4096;
+
+    final Kernels scalar = new ScalarKernels();
+    final Kernels active = Kernels.get();
+    float[] noise;
+    int[] source;
+    int[] argb;
+
+    @Setup
+    public void setup() {
+        SplittableRandom random = new SplittableRandom(1);
+        noise = new float[PIXELS];
+        source = new int[PIXELS];
+        argb = new int[PIXELS];
+        for (int i = 0; i < PIXELS; i++) {
+            noise[i] = (float) random.nextGaussian();
+            source[i] = random.nextInt();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PIXELS)
+    public int[] applyNoise() {
+        for (int i = 0; i < PIXELS; i++) {
+            argb[i] = ScalarKernels.applyNoise(noise[i], source[i]);
+        }
+        return argb;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PIXELS)
+    public int[] scalarComposite() {
+        System.arraycopy(source, 0, argb, 0, PIXELS);
+        scalar.composite(noise, 0, argb, PIXELS);
+        return argb;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PIXELS)
+    public int[] activeComposite() {
+        System.arraycopy(source, 0, argb, 0, PIXELS);
+        active.composite(noise, 0, argb, PIXELS);
+        return argb;
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2025 cire3. All Rights Reserved.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package me.cire3.apcsp.create.bench;
+
+import me.cire3.apcsp.create.noise.WeightedGenerator;
+import me.cire3.apcsp.create.pipeline.CompiledPipeline;
+import me.cire3.apcsp.create.pipeline.PipelineCompiler;
+import me.cire3.apcsp.create.pipeline.PipelineParser;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static me.cire3.apcsp.create.bench.GeneratorBenchmark.TILE;
+
+// one tile of a whole pipeline: the generator list as TileRenderer used to walk it, the fused kernel of a compiled
+// pipeline, and the same pipeline timed layer by layer as --metrics does
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompiledPipelineBenchmark {
+    private static final String[] PIPELINE = {
+            "perlin:scale=1@0.8",
+            "gaussian:sigma=0.5,seed=1@0.5",
+            "value:scale=0.2,seed=2@0.5",
+            "white:seed=3@0.3",
+            "saltpepper:probability=0.05,seed=4@0.3"
+    };
+
+    @Param({"1", "3", "5"})
+    public int generatorCount;
+
+    List<WeightedGenerator> generators;
+    CompiledPipeline compiled;
+    long[] layerNanos;
+    CompiledPipeline.LayerTimer timer;
+    float[] tile;
+    int origin;
+
+    @Setup
+    public void setup() {
+        generators = PipelineParser.parse(String.join(";", List.of(PIPELINE).subList(0, generatorCount)));
+        compiled = PipelineCompiler.compile(generators);
+        layerNanos = new long[compiled.getLayers().size()];
+        timer = (layer, nanos) -> layerNanos[layer] += nanos;
+        tile = new float[TILE * TILE];
+    }
+
+    // moves the tile every invocation so nothing is hoisted out of the loop
+    private int nextOrigin() {
+        origin = (origin + TILE) & 0xFFFF;
+        return origin;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TILE * TILE)
+    public float[] generatorList() {
+        int x0 = nextOrigin();
+        for (WeightedGenerator generator : generators) {
+            generator.fillRegion(tile, 0, TILE, x0, 0, TILE, TILE, 1f);
+        }
+        return tile;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TILE * TILE)
+    public float[] compiled() {
+        compiled.fillRegion(tile, 0, TILE, nextOrigin(), 0, TILE, TILE, 1f);
+        return tile;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TILE * TILE)
+    public float[] compiledLayerTimed() {
+        compiled.fillRegion(tile, 0, TILE, nextOrigin(), 0, TILE, TILE, 1f, timer);
+        return tile;
+    }
+}
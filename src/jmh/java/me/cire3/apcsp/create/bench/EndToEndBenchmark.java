@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2025 cire3. All Rights Reserved.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package me.cire3.apcsp.create.bench;
+
+import me.cire3.apcsp.create.Processor;
+import me.cire3.apcsp.create.TileRenderer;
+import me.cire3.apcsp.create.noise.WeightedGenerator;
+import me.cire3.apcsp.create.pipeline.PipelineParser;
+import me.cire3.apcsp.create.png.PngEncoder;
+import org.openjdk.jmh.annotations.*;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// whole-image throughput; the pixels aux counter is reported as pixels per second, divide by 1e6 for MP/s
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EndToEndBenchmark {
+    private static final String[] PIPELINE = {
+            "perlin:scale=1@0.8",
+            "gaussian:sigma=0.5,seed=1@0.5",
+            "value:scale=0.2,seed=2@0.5",
+            "white:seed=3@0.3",
+            "saltpepper:probability=0.05,seed=4@0.3"
+    };
+
+    @Param({"512", "2048", "4096"})
+    public int size;
+
+    @Param({"1", "3", "5"})
+    public int generatorCount;
+
+    @Param({"1"})
+    public int threads;
+
+    List<WeightedGenerator> generators;
+    BufferedImage source;
+    BufferedImage output;
+    TileRenderer renderer;
+    File input;
+    File encoded;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Pixels {
+        public long pixels;
+    }
+
+    @Setup
+    public void setup() throws IOException {
+        generators = PipelineParser.parse(String.join(";", List.of(PIPELINE).subList(0, generatorCount)));
+        source = new BufferedImage(size, size, BufferedImage.TYPE_3BYTE_BGR);
+        SplittableRandom random = new SplittableRandom(7);
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                source.setRGB(x, y, random.nextInt());
+            }
+        }
+        output = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+        renderer = new TileRenderer(threads);
+        // the encode benchmarks compress a rendered frame rather than a blank one
+        renderer.render(source, output, generators);
+
+        input = File.createTempFile("bench-input", ".png");
+        encoded = File.createTempFile("bench-output", ".png");
+        ImageIO.write(source, "PNG", input);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        renderer.close();
+        Files.deleteIfExists(input.toPath());
+        Files.deleteIfExists(encoded.toPath());
+    }
+
+    @Benchmark
+    public BufferedImage render(Pixels counter) {
+        renderer.render(source, output, generators);
+        counter.pixels += (long) size * size;
+        return output;
+    }
+
+    @Benchmark
+    public void encode(Pixels counter) throws IOException {
+        try (PngEncoder encoder = new PngEncoder(PngEncoder.DEFAULT_LEVEL, threads)) {
+            encoder.encode(size, size, (y, argb) -> output.getRGB(0, y, size, 1, argb, 0, size), encoded);
+        }
+        counter.pixels += (long) size * size;
+    }
+
+    @Benchmark
+    public void encodeImageIO(Pixels counter) throws IOException {
+        ImageIO.write(output, "PNG", encoded);
+        counter.pixels += (long) size * size;
+    }
+
+    @Benchmark
+    public void process(Pixels counter) throws IOException {
+        new Processor(input, encoded, generators, threads).process();
+        counter.pixels += (long) size * size;
+    }
+}
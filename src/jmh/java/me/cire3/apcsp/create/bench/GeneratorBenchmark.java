@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2025 cire3. All Rights Reserved.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package me.cire3.apcsp.create.bench;
+
+import me.cire3.apcsp.create.noise.*;
+import me.cire3.apcsp.create.random.RandomSource;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeneratorBenchmark {
+    static final int TILE = 64;
+
+    @Param({"gaussian", "perlin", "saltpepper", "value", "white", "fractal", "gradient", "simplex"})
+    public String type;
+
+    NoiseGenerator generator;
+    float[] tile;
+    int origin;
+
+    @Setup
+    public void setup() {
+        generator = create(type);
+        tile = new float[TILE * TILE];
+    }
+
+    static NoiseGenerator create(String type) {
+        RandomSource random = RandomSource.seeded(1);
+        return switch (type) {
+            case "gaussian" -> new GaussianNoiseGenerator(0, 1, random);
+            case "perlin" -> new PerlinNoiseGenerator(1f);
+            case "saltpepper" -> new SaltAndPepperNoiseGenerator(0.2f, random);
+            case "value" -> new ValueNoiseGenerator(256, 256, 0.2f, random);
+            case "white" -> new WhiteNoiseGenerator(random);
+            case "fractal" -> new FractalNoiseGenerator(5, 1 / 64f);
+            case "gradient" -> new GradientNoiseGenerator(1 / 32f, 1f);
+            case "simplex" -> new OpenSimplex2NoiseGenerator(1 / 32f, 1f);
+            default -> throw new IllegalArgumentException(type);
+        };
+    }
+
+    // moves the tile every invocation so nothing is hoisted out of the loop
+    private int nextOrigin() {
+        origin = (origin + TILE) & 0xFFFF;
+        return origin;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TILE * TILE)
+    public void samplePoint(Blackhole blackhole) {
+        int x0 = nextOrigin();
+        for (int y = 0; y < TILE; y++) {
+            for (int x = 0; x < TILE; x++) {
+                blackhole.consume(generator.samplePoint(x0 + x, y));
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TILE * TILE)
+    public float[] fillRegion() {
+        generator.fillRegion(tile, 0, TILE, nextOrigin(), 0, TILE, TILE, 1f);
+        return tile;
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2025 cire3. All Rights Reserved.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package me.cire3.apcsp.create.bench;
+
+import me.cire3.apcsp.create.noise.NoiseGenerator;
+import me.cire3.apcsp.create.noise.WeightedGenerator;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+import static me.cire3.apcsp.create.bench.GeneratorBenchmark.TILE;
+
+// the cost of the WeightedGenerator layer over calling the generator directly
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WeightedGeneratorBenchmark {
+    @Param({"perlin", "white"})
+    public String type;
+
+    NoiseGenerator direct;
+    NoiseGenerator weighted;
+    float[] tile;
+
+    @Setup
+    public void setup() {
+        direct = GeneratorBenchmark.create(type);
+        weighted = new WeightedGenerator(direct, 0.5f);
+        tile = new float[TILE * TILE];
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TILE * TILE)
+    public void directSample(Blackhole blackhole) {
+        sample(direct, blackhole);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TILE * TILE)
+    public void weightedSample(Blackhole blackhole) {
+        sample(weighted, blackhole);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TILE * TILE)
+    public float[] directFill() {
+        direct.fillRegion(tile, 0, TILE, 0, 0, TILE, TILE, 0.5f);
+        return tile;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TILE * TILE)
+    public float[] weightedFill() {
+        weighted.fillRegion(tile, 0, TILE, 0, 0, TILE, TILE, 1f);
+        return tile;
+    }
+
+    private static void sample(NoiseGenerator generator, Blackhole blackhole) {
+        for (int y = 0; y < TILE; y++) {
+            for (int x = 0; x < TILE; x++) {
+                blackhole.consume(generator.samplePoint(x, y));
+            }
+        }
+    }
+}
@@ -0,0 +1,248 @@
+/*
+ * Copyright (c) 2025 cire3. All Rights Reserved.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package me.cire3.apcsp.create;
+
+import me.cire3.apcsp.create.anim.AnimationFrame;
+import me.cire3.apcsp.create.anim.FrameReader;
+import me.cire3.apcsp.create.anim.FrameWriter;
+import me.cire3.apcsp.create.anim.GifFrameWriter;
+import me.cire3.apcsp.create.anim.SequenceFrameWriter;
+import me.cire3.apcsp.create.cache.NoiseFieldCache;
+import me.cire3.apcsp.create.metrics.Stage;
+import me.cire3.apcsp.create.noise.AnimatedGenerator;
+import me.cire3.apcsp.create.noise.NoiseGenerator;
+import me.cire3.apcsp.create.noise.WeightedGenerator;
+import me.cire3.apcsp.create.pipeline.PipelineCompiler;
+import me.cire3.apcsp.create.pipeline.PipelineSnapshot;
+import me.cire3.apcsp.create.png.PngEncoder;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// renders every frame of an animated GIF into an animated GIF, or a directory of numbered frames into a directory of
+// PNGs. One thread decodes, frames render in parallel on the workers, and this thread takes them back in order and
+// encodes them; the queue between decode and encode holds at most two frames per worker, so memory does not grow
+// with the length of the sequence. Frame n renders the pipeline at AnimatedGenerator.atFrame(n), so frame 0 is
+// exactly what Processor renders for the same still
+public class AnimationProcessor {
+    public static final File DEFAULT_OUTPUT = new File("testing.gif");
+
+    // time slices per frame, small steps let the grain drift instead of flicker
+    public static final float DEFAULT_FRAME_TIME = 0.1f;
+
+    private static final AtomicInteger THREADS = new AtomicInteger();
+
+    private final File inputFile;
+    private final File outputFile;
+    private final List<WeightedGenerator> generators;
+    private final int parallelism;
+    private final NoiseFieldCache cache;
+    private final int compressionLevel;
+    private final float frameTime;
+
+    public AnimationProcessor(File inputFile, File outputFile, List<WeightedGenerator> generators, int parallelism) {
+        this(inputFile, outputFile, generators, parallelism, null, PngEncoder.DEFAULT_LEVEL, DEFAULT_FRAME_TIME);
+    }
+
+    public AnimationProcessor(File inputFile, File outputFile, PipelineSnapshot pipeline, int parallelism,
+                              NoiseFieldCache cache) {
+        this(inputFile, outputFile, pipeline.getGenerators(), parallelism, cache, PngEncoder.DEFAULT_LEVEL,
+                DEFAULT_FRAME_TIME);
+    }
+
+    // the output is a GIF file for a GIF input and a directory for a frame directory; compressionLevel only applies
+    // to the PNGs of a frame directory
+    public AnimationProcessor(File inputFile, File outputFile, List<WeightedGenerator> generators, int parallelism,
+                              NoiseFieldCache cache, int compressionLevel, float frameTime) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be at least 1: " + parallelism);
+        }
+        this.inputFile = inputFile;
+        this.outputFile = outputFile;
+        this.generators = generators;
+        this.parallelism = parallelism;
+        this.cache = cache;
+        this.compressionLevel = compressionLevel;
+        this.frameTime = frameTime;
+    }
+
+    public File getOutputFile() {
+        return outputFile;
+    }
+
+    // progress counts frames rendered plus frames encoded
+    public RenderJob start(Executor executor) {
+        RenderJob job = new RenderJob();
+        executor.execute(() -> job.run(() -> process(job)));
+        return job;
+    }
+
+    // the stats stack every frame below the previous one, so width x height is the total pixel count
+    public RenderStats process() throws IOException {
+        return process(new RenderJob());
+    }
+
+    private RenderStats process(RenderJob job) throws IOException {
+        ExecutorService decoder = Executors.newSingleThreadExecutor(r -> thread(r, "Frame Decode"));
+        ExecutorService workers = Executors.newFixedThreadPool(parallelism, r -> thread(r, "Frame Render"));
+        // frames are the unit of parallelism, so each worker renders its frame's tiles on its own thread
+        TileRenderer renderer = new TileRenderer(1, cache);
+        BlockingQueue<CompletableFuture<Rendered>> queue = new ArrayBlockingQueue<>(2 * parallelism);
+        LongAdder decodeNanos = new LongAdder();
+        long start = System.nanoTime();
+
+        try (FrameReader reader = FrameReader.open(inputFile)) {
+            int frames = reader.size();
+            if (frames == 0) {
+                throw new IOException("No frames in " + inputFile.getAbsolutePath());
+            }
+            job.begin(2L * frames);
+
+            decoder.execute(() -> decode(reader, queue, workers, renderer, job, decodeNanos));
+            try {
+                return encode(queue, job, start, decodeNanos);
+            } finally {
+                // the decoder still holds the reader, let it stop before the reader is closed
+                decoder.shutdownNow();
+                workers.shutdownNow();
+                awaitQuietly(decoder);
+            }
+        } finally {
+            renderer.close();
+        }
+    }
+
+    private void decode(FrameReader reader, BlockingQueue<CompletableFuture<Rendered>> queue, Executor workers,
+                        TileRenderer renderer, RenderJob job, LongAdder decodeNanos) {
+        try {
+            while (true) {
+                job.checkCancelled();
+                long start = System.nanoTime();
+                AnimationFrame frame = reader.next();
+                decodeNanos.add(System.nanoTime() - start);
+                if (frame == null) {
+                    break;
+                }
+                // copied here, one frame at a time, so workers never read the shared generators
+                List<WeightedGenerator> pipeline = AnimatedGenerator.atFrame(generators, frame.getIndex(), frameTime);
+                queue.put(CompletableFuture.supplyAsync(() -> render(frame, pipeline, renderer, job), workers));
+            }
+            queue.put(CompletableFuture.completedFuture(null));
+        } catch (InterruptedException e) {
+            // the encoder gave up and is no longer reading the queue
+        } catch (Throwable t) {
+            try {
+                queue.put(CompletableFuture.failedFuture(t));
+            } catch (InterruptedException ignored) {
+            }
+        }
+    }
+
+    private Rendered render(AnimationFrame frame, List<WeightedGenerator> generators, TileRenderer renderer, RenderJob job) {
+        BufferedImage source = frame.getImage();
+        BufferedImage output = new BufferedImage(source.getWidth(), source.getHeight(), BufferedImage.TYPE_INT_ARGB);
+        List<NoiseGenerator> pipeline = List.of(PipelineCompiler.compile(generators, cache));
+        RenderStats stats = renderer.render(source, output, 0, 0, pipeline, job::isCancelled);
+        job.advance(1);
+        return new Rendered(frame.withImage(output), stats);
+    }
+
+    private RenderStats encode(BlockingQueue<CompletableFuture<Rendered>> queue, RenderJob job, long start,
+                               LongAdder decodeNanos) throws IOException {
+        boolean gif = !inputFile.isDirectory();
+        RenderStats total = null;
+        long encodeNanos = 0;
+        try (FrameWriter writer = gif
+                ? new GifFrameWriter(outputFile)
+                : new SequenceFrameWriter(outputFile, compressionLevel, 1)) {
+            while (true) {
+                Rendered rendered = take(queue);
+                if (rendered == null) {
+                    break;
+                }
+                job.checkCancelled();
+                long encodeStart = System.nanoTime();
+                writer.write(rendered.frame);
+                encodeNanos += System.nanoTime() - encodeStart;
+                job.advance(1);
+                total = total == null ? rendered.stats : total.append(rendered.stats);
+            }
+        } catch (CancellationException e) {
+            // a cancelled GIF is cut short, finished frames of a sequence are complete files and stay
+            if (gif) {
+                Files.deleteIfExists(outputFile.toPath());
+            }
+            throw e;
+        }
+
+        if (total == null) {
+            throw new IOException("No frames in " + inputFile.getAbsolutePath());
+        }
+        long pixels = (long) total.getWidth() * total.getHeight();
+        Stage.record("decode", decodeNanos.sum(), pixels, 0);
+        Stage.record("render", total.getBusyNanos(), pixels, total.getAllocatedBytes());
+        Stage.record("encode", encodeNanos, pixels, 0);
+        return new RenderStats(total.getWidth(), total.getHeight(), total.getTiles(), parallelism,
+                System.nanoTime() - start, total.getBusyNanos(), total.getGeneratorNanos(), total.getCompositeNanos(),
+                total.getAllocatedBytes());
+    }
+
+    private static Rendered take(BlockingQueue<CompletableFuture<Rendered>> queue) throws IOException {
+        try {
+            return queue.take().join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted", e);
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            } else if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw e;
+        }
+    }
+
+    private static void awaitQuietly(ExecutorService executor) {
+        try {
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Thread thread(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name + " " + THREADS.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private record Rendered(AnimationFrame frame, RenderStats stats) {
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright (c) 2025 cire3. All Rights Reserved.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package me.cire3.apcsp.create;
+
+import java.awt.Image;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import java.awt.image.SampleModel;
+import java.awt.image.WritableRaster;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Vector;
+
+// an ARGB image that is only ever materialized one horizontal band at a time; encoders pull rows through readRow or
+// getData(Rectangle), so the whole output never has to be resident
+public class BandedImage implements RenderedImage {
+    public interface BandSource {
+        // fills target (exactly rows tall) with image rows [y0, y0 + rows)
+        void render(int y0, int rows, BufferedImage target) throws IOException;
+    }
+
+    private final int width;
+    private final int height;
+    private final int bandHeight;
+    private final BandSource source;
+    private final BufferedImage band;
+    private final RasterAccess.RowReader reader;
+
+    private int bandY = -1;
+    private int bandRows;
+
+    public BandedImage(int width, int height, int bandHeight, BandSource source) {
+        this.width = width;
+        this.height = height;
+        this.bandHeight = Math.max(1, Math.min(bandHeight, height));
+        this.source = source;
+        this.band = new BufferedImage(width, this.bandHeight, BufferedImage.TYPE_INT_ARGB);
+        this.reader = RasterAccess.reader(band);
+    }
+
+    public int getBandHeight() {
+        return bandHeight;
+    }
+
+    private synchronized BufferedImage bandContaining(int y) {
+        int start = y / bandHeight * bandHeight;
+        if (start != bandY) {
+            int rows = Math.min(bandHeight, height - start);
+            BufferedImage target = rows == bandHeight ? band : band.getSubimage(0, 0, width, rows);
+            try {
+                source.render(start, rows, target);
+            } catch (IOException e) {
+                bandY = -1;
+                throw new UncheckedIOException(e);
+            }
+            bandY = start;
+            bandRows = rows;
+        }
+        return band;
+    }
+
+    // copies row y into argb, rendering its band first; reading top to bottom renders every band once
+    public synchronized void readRow(int y, int[] argb) {
+        bandContaining(y);
+        reader.read(0, y - bandY, width, argb);
+    }
+
+    @Override
+    public synchronized Raster getData(Rectangle rect) {
+        Rectangle bounds = rect.intersection(new Rectangle(width, height));
+        WritableRaster copy = Raster.createWritableRaster(
+                band.getSampleModel().createCompatibleSampleModel(bounds.width, bounds.height),
+                new Point(bounds.x, bounds.y));
+        copyData(copy);
+        return copy;
+    }
+
+    @Override
+    public Raster getData() {
+        return getData(new Rectangle(width, height));
+    }
+
+    @Override
+    public synchronized WritableRaster copyData(WritableRaster raster) {
+        if (raster == null) {
+            raster = band.getRaster().createCompatibleWritableRaster(width, height);
+        }
+        Rectangle bounds = raster.getBounds().intersection(new Rectangle(width, height));
+        int y = bounds.y;
+        while (y < bounds.y + bounds.height) {
+            BufferedImage current = bandContaining(y);
+            int rows = Math.min(bandY + bandRows, bounds.y + bounds.height) - y;
+            Raster part = current.getRaster().createChild(bounds.x, y - bandY, bounds.width, rows,
+                    bounds.x, y, null);
+            raster.setRect(part);
+            y += rows;
+        }
+        return raster;
+    }
+
+    @Override
+    public Raster getTile(int tileX, int tileY) {
+        int y0 = tileY * bandHeight;
+        return getData(new Rectangle(0, y0, width, Math.min(bandHeight, height - y0)));
+    }
+
+    @Override
+    public Vector<RenderedImage> getSources() {
+        return null;
+    }
+
+    @Override
+    public Object getProperty(String name) {
+        return Image.UndefinedProperty;
+    }
+
+    @Override
+    public String[] getPropertyNames() {
+        return null;
+    }
+
+    @Override
+    public ColorModel getColorModel() {
+        return band.getColorModel();
+    }
+
+    @Override
+    public SampleModel getSampleModel() {
+        return band.getSampleModel();
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public int getMinX() {
+        return 0;
+    }
+
+    @Override
+    public int getMinY() {
+        return 0;
+    }
+
+    @Override
+    public int getNumXTiles() {
+        return 1;
+    }
+
+    @Override
+    public int getNumYTiles() {
+        return (height + bandHeight - 1) / bandHeight;
+    }
+
+    @Override
+    public int getMinTileX() {
+        return 0;
+    }
+
+    @Override
+    public int getMinTileY() {
+        return 0;
+    }
+
+    @Override
+    public int getTileWidth() {
+        return width;
+    }
+
+    @Override
+    public int getTileHeight() {
+        return bandHeight;
+    }
+
+    @Override
+    public int getTileGridXOffset() {
+        return 0;
+    }
+
+    @Override
+    public int getTileGridYOffset() {
+        return 0;
+    }
+}
@@ -16,6 +16,7 @@
 package me.cire3.apcsp.create;
 
 import com.formdev.flatlaf.themes.FlatMacDarkLaf;
+import me.cire3.apcsp.create.cli.BatchMain;
 
 import javax.swing.*;
 import java.awt.*;
@@ -54,6 +55,11 @@ public class Main {
     }
 
     public static void main(String[] args) {
+        if (args.length > 0) {
+            BatchMain.main(args);
+            return;
+        }
+
         try {
             UIManager.setLookAndFeel(new FlatMacDarkLaf());
             FlatMacDarkLaf.setup();
@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2025 cire3. All Rights Reserved.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package me.cire3.apcsp.create;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+public class PreviewPanel extends JComponent {
+    private BufferedImage image;
+
+    public PreviewPanel(Dimension size) {
+        setPreferredSize(size);
+        setMaximumSize(size);
+        setAlignmentX(Component.CENTER_ALIGNMENT);
+    }
+
+    public void setImage(BufferedImage image) {
+        this.image = image;
+        repaint();
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        super.paintComponent(g);
+        Graphics2D g2 = (Graphics2D) g.create();
+        if (image == null) {
+            g2.setFont(Main.NUNITO_FONT_12);
+            g2.setColor(Color.BLACK);
+            String hint = "Choose an image to see a live preview";
+            FontMetrics metrics = g2.getFontMetrics();
+            g2.drawString(hint, (getWidth() - metrics.stringWidth(hint)) / 2, getHeight() / 2);
+        } else {
+            // coarse levels are stretched to the same box as the final one, smoothing hides the blockiness
+            double fit = Math.min((double) getWidth() / image.getWidth(), (double) getHeight() / image.getHeight());
+            int width = (int) (image.getWidth() * fit);
+            int height = (int) (image.getHeight() * fit);
+            g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g2.drawImage(image, (getWidth() - width) / 2, (getHeight() - height) / 2, width, height, null);
+        }
+        g2.dispose();
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2025 cire3. All Rights Reserved.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package me.cire3.apcsp.create;
+
+import me.cire3.apcsp.create.cache.NoiseFieldCache;
+import me.cire3.apcsp.create.noise.NoiseGenerator;
+import me.cire3.apcsp.create.pipeline.PipelineCompiler;
+import me.cire3.apcsp.create.pipeline.PipelineSnapshot;
+
+import javax.imageio.ImageIO;
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+// renders the preview on a background thread: requests are debounced, every new request bumps the generation so
+// in-flight renders stop at their next tile, and each request is drawn coarse to fine; the EDT only swaps images
+public class PreviewRenderer implements AutoCloseable {
+    public static final int PROXY_SIZE = 512;
+
+    private static final long DEBOUNCE_MILLIS = 120;
+    // proxy divisors, coarsest first
+    private static final int[] LEVELS = {4, 2, 1};
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "Noise Preview");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final TileRenderer renderer;
+    private final NoiseFieldCache cache;
+    private final Consumer<BufferedImage> sink;
+    private final AtomicLong generation = new AtomicLong();
+
+    // written on the preview thread only
+    private BufferedImage[] proxies;
+    // EDT only
+    private ScheduledFuture<?> pending;
+
+    public PreviewRenderer(NoiseFieldCache cache, Consumer<BufferedImage> sink) {
+        this.renderer = new TileRenderer(Math.max(1, Runtime.getRuntime().availableProcessors() - 1), cache);
+        this.cache = cache;
+        this.sink = sink;
+    }
+
+    public void setSource(File file, PipelineSnapshot pipeline) {
+        long request = restart();
+        // loads are never cancelled, a later request simply renders after the load on the same thread
+        executor.execute(() -> {
+            try {
+                proxies = loadProxies(file);
+            } catch (Exception e) {
+                proxies = null;
+                System.out.println("Error loading preview: " + e);
+                return;
+            }
+            render(request, pipeline);
+        });
+    }
+
+    public void requestRender(PipelineSnapshot pipeline) {
+        long request = restart();
+        pending = executor.schedule(() -> render(request, pipeline), DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private long restart() {
+        if (!SwingUtilities.isEventDispatchThread()) {
+            throw new IllegalStateException("Preview requests must come from the event dispatch thread");
+        }
+        if (pending != null) {
+            pending.cancel(false);
+        }
+        return generation.incrementAndGet();
+    }
+
+    private void render(long request, PipelineSnapshot snapshot) {
+        BufferedImage[] levels = proxies;
+        if (levels == null) {
+            return;
+        }
+        try {
+            List<NoiseGenerator> pipeline = List.of(PipelineCompiler.compile(snapshot.getGenerators(), cache));
+            for (BufferedImage source : levels) {
+                if (generation.get() != request) {
+                    return;
+                }
+                BufferedImage output = new BufferedImage(source.getWidth(), source.getHeight(), BufferedImage.TYPE_INT_ARGB);
+                renderer.render(source, output, 0, 0, pipeline, () -> generation.get() != request);
+                SwingUtilities.invokeLater(() -> {
+                    if (generation.get() == request) {
+                        sink.accept(output);
+                    }
+                });
+            }
+        } catch (CancellationException ignored) {
+        } catch (RuntimeException e) {
+            System.out.println("Error rendering preview: " + e);
+        }
+    }
+
+    private static BufferedImage[] loadProxies(File file) throws Exception {
+        BufferedImage image = ImageIO.read(file);
+        if (image == null) {
+            throw new IllegalArgumentException("Unsupported image format: " + file);
+        }
+        double fit = Math.min(1.0, (double) PROXY_SIZE / Math.max(image.getWidth(), image.getHeight()));
+
+        BufferedImage[] levels = new BufferedImage[LEVELS.length];
+        for (int i = 0; i < LEVELS.length; i++) {
+            int width = Math.max(1, (int) Math.round(image.getWidth() * fit / LEVELS[i]));
+            int height = Math.max(1, (int) Math.round(image.getHeight() * fit / LEVELS[i]));
+            levels[i] = scale(image, width, height);
+        }
+        return levels;
+    }
+
+    // halves with bilinear filtering until close to the target so large sources do not alias
+    private static BufferedImage scale(BufferedImage image, int width, int height) {
+        BufferedImage current = image;
+        do {
+            int w = Math.max(width, current.getWidth() / 2);
+            int h = Math.max(height, current.getHeight() / 2);
+            if (current.getWidth() / 2 < width || current.getHeight() / 2 < height) {
+                w = width;
+                h = height;
+            }
+            BufferedImage next = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g = next.createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.drawImage(current, 0, 0, w, h, null);
+            g.dispose();
+            current = next;
+        } while (current.getWidth() != width || current.getHeight() != height);
+        return current;
+    }
+
+    @Override
+    public void close() {
+        generation.incrementAndGet();
+        executor.shutdownNow();
+        renderer.close();
+    }
+}
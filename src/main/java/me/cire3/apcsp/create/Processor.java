@@ -15,74 +15,203 @@
 
 package me.cire3.apcsp.create;
 
+import me.cire3.apcsp.create.buffer.OffHeapPlane;
+import me.cire3.apcsp.create.buffer.PlaneStorage;
+import me.cire3.apcsp.create.cache.NoiseFieldCache;
+import me.cire3.apcsp.create.cache.ResultCache;
+import me.cire3.apcsp.create.metrics.Stage;
+import me.cire3.apcsp.create.noise.NoiseGenerator;
 import me.cire3.apcsp.create.noise.WeightedGenerator;
+import me.cire3.apcsp.create.pipeline.PipelineCompiler;
+import me.cire3.apcsp.create.pipeline.PipelineSnapshot;
+import me.cire3.apcsp.create.png.PngEncoder;
 
+import javax.imageio.IIOException;
 import javax.imageio.ImageIO;
+import java.awt.Dimension;
 import java.awt.image.BufferedImage;
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.util.Arrays;
 import java.util.List;
-
-import static me.cire3.apcsp.create.MathUtils.clamp;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
 
 public class Processor {
+    public static final File DEFAULT_OUTPUT = new File("testing.png");
+
     private final File inputFile;
+    private final File outputFile;
     private final List<WeightedGenerator> generators;
+    private final int parallelism;
+    private final NoiseFieldCache cache;
+    private final PlaneStorage storage;
+    private final int compressionLevel;
+    private final ResultCache results;
 
     public Processor(File inputFile, List<WeightedGenerator> generators) {
-        this.inputFile = inputFile;
-        this.generators = generators;
+        this(inputFile, generators, Runtime.getRuntime().availableProcessors());
     }
 
-    public void run() {
-        try {
-            BufferedImage image = ImageIO.read(inputFile);
+    public Processor(File inputFile, List<WeightedGenerator> generators, int parallelism) {
+        this(inputFile, DEFAULT_OUTPUT, generators, parallelism);
+    }
 
-            float[][] noise = new float[image.getWidth()][image.getHeight()];
+    public Processor(File inputFile, File outputFile, List<WeightedGenerator> generators, int parallelism) {
+        this(inputFile, outputFile, generators, parallelism, null);
+    }
 
-            for (int x = 0; x < image.getWidth(); x++) {
-                noise[x] = new float[image.getHeight()];
-                Arrays.fill(noise[x], 1.0f);
-            }
+    public Processor(File inputFile, File outputFile, PipelineSnapshot pipeline, int parallelism,
+                     NoiseFieldCache cache) {
+        this(inputFile, outputFile, pipeline.getGenerators(), parallelism, cache);
+    }
 
-            for (WeightedGenerator generator : generators) {
-                for (int x = 0; x < image.getWidth(); x++) {
-                    for (int y = 0; y < image.getHeight(); y++) {
-                        noise[x][y] += generator.samplePoint(x, y);
-                    }
-                }
-            }
+    // the generators are read by render threads, so they must not be edited until processing ends; pass a
+    // PipelineSnapshot when the caller keeps editing
+    public Processor(File inputFile, File outputFile, List<WeightedGenerator> generators, int parallelism,
+                     NoiseFieldCache cache) {
+        this(inputFile, outputFile, generators, parallelism, cache, PlaneStorage.HEAP, PngEncoder.DEFAULT_LEVEL);
+    }
 
-            BufferedImage output = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_ARGB);
-            for (int x = 0; x < image.getWidth(); x++) {
-                for (int y = 0; y < image.getHeight(); y++) {
-                    output.setRGB(x, y, applyNoise(noise[x][y], image.getRGB(x, y)));
-                }
-            }
+    // an off-heap storage keeps the rendered frame out of the heap until the encoder has streamed it to disk
+    public Processor(File inputFile, File outputFile, List<WeightedGenerator> generators, int parallelism,
+                     NoiseFieldCache cache, PlaneStorage storage, int compressionLevel) {
+        this(inputFile, outputFile, generators, parallelism, cache, storage, compressionLevel, null);
+    }
 
-            ImageIO.write(output, "PNG", new File("testing.png"));
+    // with a result cache, a deterministic pipeline over an input it has seen copies the earlier output instead
+    public Processor(File inputFile, File outputFile, List<WeightedGenerator> generators, int parallelism,
+                     NoiseFieldCache cache, PlaneStorage storage, int compressionLevel, ResultCache results) {
+        if (!storage.isAvailable()) {
+            throw new IllegalArgumentException(storage + " planes need --add-modules jdk.incubator.foreign");
+        }
+        this.inputFile = inputFile;
+        this.outputFile = outputFile;
+        this.generators = generators;
+        this.parallelism = parallelism;
+        this.cache = cache;
+        this.storage = storage;
+        this.compressionLevel = compressionLevel;
+        this.results = results;
+    }
 
-            System.out.println("Output: " + new File("testing.png").getAbsolutePath());
+    // returns whether the output was written
+    public boolean run() {
+        try {
+            System.out.println("Rendered " + process());
+            System.out.println("Output: " + outputFile.getAbsolutePath());
+            return true;
         } catch (Exception e) {
             System.out.println("Error reading file: " + inputFile.getAbsolutePath());
             System.out.println(e);
             System.out.println(Arrays.toString(e.getStackTrace()));
+            return false;
         }
     }
 
-    private static int applyNoise(float noise, int rgba) {
-        int a = (rgba >>> 24) & 0xFF;
-        int r = (rgba >>> 16) & 0xFF;
-        int g = (rgba >>> 8)  & 0xFF;
-        int b =  rgba         & 0xFF;
+    public File getOutputFile() {
+        return outputFile;
+    }
 
-        float mul = 1f + noise * 0.10f;
-        float add = noise * 20f;
+    // runs process() on the executor; the job reports progress, can be cancelled and completes with the stats
+    public RenderJob start(Executor executor) {
+        RenderJob job = new RenderJob();
+        executor.execute(() -> job.run(() -> process(job)));
+        return job;
+    }
 
-        r = (int) clamp((int) (r * mul + add), 0, 255);
-        g = (int) clamp((int) (g * mul + add), 0, 255);
-        b = (int) clamp((int) (b * mul + add), 0, 255);
+    public RenderStats process() throws IOException {
+        return process(new RenderJob());
+    }
+
+    private RenderStats process(RenderJob job) throws IOException {
+        String key = results == null ? null : results.key(inputFile.toPath(), generators, compressionLevel);
+        if (key != null) {
+            Dimension size = results.restore(key, outputFile.toPath());
+            if (size != null) {
+                job.begin(1);
+                job.advance(1);
+                return new RenderStats(size.width, size.height, 0, parallelism, 0, 0);
+            }
+        }
+        RenderStats stats = render(job);
+        if (key != null) {
+            results.store(key, outputFile.toPath());
+        }
+        return stats;
+    }
 
-        return (a << 24) | (r << 16) | (g << 8) | b;
+    private RenderStats render(RenderJob job) throws IOException {
+        String name = inputFile.getName();
+        Stage decode = Stage.begin("decode", name);
+        // every decode failure surfaces as an IIOException so callers can tell bad input from other I/O failures
+        BufferedImage image;
+        try {
+            image = ImageIO.read(inputFile);
+        } catch (IIOException e) {
+            throw e;
+        } catch (IOException e) {
+            // some readers, such as BMP, let an EOFException through on truncated input
+            throw new IIOException("Could not decode " + inputFile.getAbsolutePath(), e);
+        }
+        if (image == null) {
+            throw new IIOException("Unsupported image format: " + inputFile.getAbsolutePath());
+        }
+        long pixels = (long) image.getWidth() * image.getHeight();
+        decode.end(pixels);
+        job.checkCancelled();
+        // every pixel is rendered once and encoded once
+        job.begin(2 * pixels);
+
+        int width = image.getWidth();
+        int height = image.getHeight();
+        List<NoiseGenerator> pipeline = List.of(PipelineCompiler.compile(generators, cache));
+
+        if (storage == PlaneStorage.HEAP) {
+            Stage render = Stage.begin("render", name);
+            BufferedImage output = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+            RenderStats stats;
+            try (TileRenderer renderer = new TileRenderer(parallelism, cache)) {
+                stats = renderer.render(image, output, 0, 0, pipeline, job::isCancelled, job::advance);
+            }
+            // a single-threaded render already allocates on this thread
+            render.end(pixels, parallelism > 1 ? stats.getAllocatedBytes() : 0);
+
+            RasterAccess.RowReader rows = RasterAccess.reader(output);
+            encode(width, height, (y, argb) -> rows.read(0, y, width, argb), name, pixels, job);
+            return stats;
+        }
+
+        try (OffHeapPlane plane = OffHeapPlane.allocate(width, height, storage)) {
+            Stage render = Stage.begin("render", name);
+            RenderStats stats;
+            try (TileRenderer renderer = new TileRenderer(parallelism, cache)) {
+                stats = renderer.render(image, plane, pipeline, job::isCancelled, job::advance);
+            }
+            render.end(pixels, parallelism > 1 ? stats.getAllocatedBytes() : 0);
+            image = null;
+
+            // the encoder copies rows straight out of the plane, so only the chunks being compressed are on the heap
+            encode(width, height, (y, argb) -> plane.read(0, y, width, argb), name, pixels, job);
+            return stats;
+        }
+    }
+
+    private void encode(int width, int height, PngEncoder.RowSource rows, String name, long pixels, RenderJob job)
+            throws IOException {
+        Stage encode = Stage.begin("encode", name);
+        try (PngEncoder encoder = new PngEncoder(compressionLevel, parallelism)) {
+            encoder.encode(width, height, (y, argb) -> {
+                job.checkCancelled();
+                rows.read(y, argb);
+                job.advance(width);
+            }, outputFile);
+        } catch (CancellationException e) {
+            // a cancelled encode leaves a truncated PNG behind
+            Files.deleteIfExists(outputFile.toPath());
+            throw e;
+        }
+        encode.end(pixels);
     }
 }
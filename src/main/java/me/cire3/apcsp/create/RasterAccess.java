@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2025 cire3. All Rights Reserved.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package me.cire3.apcsp.create;
+
+import me.cire3.apcsp.create.buffer.OffHeapPlane;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.ComponentColorModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DirectColorModel;
+import java.awt.image.PixelInterleavedSampleModel;
+import java.awt.image.SampleModel;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+
+// reads and writes packed ARGB rows straight from the backing arrays of the common raster layouts,
+// falling back to the bulk getRGB/setRGB row calls for anything else
+final class RasterAccess {
+    private RasterAccess() {
+    }
+
+    interface RowReader {
+        void read(int x, int y, int width, int[] argb);
+    }
+
+    interface RowWriter {
+        void write(int x, int y, int width, int[] argb);
+    }
+
+    static RowWriter writer(OffHeapPlane plane) {
+        return plane::write;
+    }
+
+    static RowReader reader(BufferedImage image) {
+        WritableRaster raster = image.getRaster();
+        SampleModel sampleModel = raster.getSampleModel();
+        ColorModel colorModel = image.getColorModel();
+        DataBuffer buffer = raster.getDataBuffer();
+        int translateX = raster.getSampleModelTranslateX();
+        int translateY = raster.getSampleModelTranslateY();
+
+        if (buffer instanceof DataBufferInt ints && sampleModel instanceof SinglePixelPackedSampleModel packed
+                && colorModel instanceof DirectColorModel direct && isArgbLayout(direct)) {
+            int[] data = ints.getData();
+            int base = ints.getOffset() - translateY * packed.getScanlineStride() - translateX;
+            int stride = packed.getScanlineStride();
+            int alpha = direct.hasAlpha() ? 0 : 0xFF000000;
+
+            if (alpha == 0) {
+                return (x, y, width, argb) -> System.arraycopy(data, base + y * stride + x, argb, 0, width);
+            }
+            return (x, y, width, argb) -> {
+                int index = base + y * stride + x;
+                for (int i = 0; i < width; i++) {
+                    argb[i] = data[index + i] | alpha;
+                }
+            };
+        }
+
+        if (buffer instanceof DataBufferByte bytes && sampleModel instanceof PixelInterleavedSampleModel interleaved
+                && colorModel instanceof ComponentColorModel && isPlain8BitSrgb(colorModel)
+                && (interleaved.getNumBands() == 3 || interleaved.getNumBands() == 4)) {
+            byte[] data = bytes.getData();
+            int pixelStride = interleaved.getPixelStride();
+            int stride = interleaved.getScanlineStride();
+            int base = bytes.getOffset() - translateY * stride - translateX * pixelStride;
+            int[] bands = interleaved.getBandOffsets();
+            int r = bands[0];
+            int g = bands[1];
+            int b = bands[2];
+
+            if (bands.length == 4) {
+                int a = bands[3];
+                return (x, y, width, argb) -> {
+                    int index = base + y * stride + x * pixelStride;
+                    for (int i = 0; i < width; i++, index += pixelStride) {
+                        argb[i] = (data[index + a] & 0xFF) << 24 | (data[index + r] & 0xFF) << 16
+                                | (data[index + g] & 0xFF) << 8 | (data[index + b] & 0xFF);
+                    }
+                };
+            }
+            return (x, y, width, argb) -> {
+                int index = base + y * stride + x * pixelStride;
+                for (int i = 0; i < width; i++, index += pixelStride) {
+                    argb[i] = 0xFF000000 | (data[index + r] & 0xFF) << 16
+                            | (data[index + g] & 0xFF) << 8 | (data[index + b] & 0xFF);
+                }
+            };
+        }
+
+        return (x, y, width, argb) -> image.getRGB(x, y, width, 1, argb, 0, width);
+    }
+
+    static RowWriter writer(BufferedImage image) {
+        WritableRaster raster = image.getRaster();
+        SampleModel sampleModel = raster.getSampleModel();
+        ColorModel colorModel = image.getColorModel();
+
+        if (raster.getDataBuffer() instanceof DataBufferInt ints
+                && sampleModel instanceof SinglePixelPackedSampleModel packed
+                && colorModel instanceof DirectColorModel direct && direct.hasAlpha() && isArgbLayout(direct)) {
+            int[] data = ints.getData();
+            int stride = packed.getScanlineStride();
+            int base = ints.getOffset() - raster.getSampleModelTranslateY() * stride - raster.getSampleModelTranslateX();
+            return (x, y, width, argb) -> System.arraycopy(argb, 0, data, base + y * stride + x, width);
+        }
+
+        return (x, y, width, argb) -> image.setRGB(x, y, width, 1, argb, 0, width);
+    }
+
+    private static boolean isArgbLayout(DirectColorModel model) {
+        return isPlain8BitSrgb(model)
+                && model.getRedMask() == 0x00FF0000
+                && model.getGreenMask() == 0x0000FF00
+                && model.getBlueMask() == 0x000000FF
+                && (!model.hasAlpha() || model.getAlphaMask() == 0xFF000000);
+    }
+
+    private static boolean isPlain8BitSrgb(ColorModel model) {
+        if (!model.getColorSpace().isCS_sRGB() || model.isAlphaPremultiplied()) {
+            return false;
+        }
+        for (int bits : model.getComponentSize()) {
+            if (bits != 8) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
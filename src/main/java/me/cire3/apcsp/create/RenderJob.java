@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2025 cire3. All Rights Reserved.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package me.cire3.apcsp.create;
+
+import javax.swing.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+// a handle on one Processor run. Progress counts pixels rendered plus pixels encoded, so it is fine grained and
+// never moves backwards; cancel() is cooperative and takes effect at the next tile or encoded row
+public class RenderJob {
+    private final LongAdder done = new LongAdder();
+    private final CompletableFuture<RenderStats> result = new CompletableFuture<>();
+    private volatile long total;
+    private volatile boolean cancelled;
+
+    // the total is only known once the source is decoded
+    void begin(long total) {
+        this.total = total;
+    }
+
+    void advance(long units) {
+        done.add(units);
+    }
+
+    void checkCancelled() {
+        if (cancelled) {
+            throw new CancellationException();
+        }
+    }
+
+    void run(Work work) {
+        try {
+            checkCancelled();
+            result.complete(work.run());
+        } catch (Throwable t) {
+            result.completeExceptionally(t);
+        }
+    }
+
+    interface Work {
+        RenderStats run() throws Exception;
+    }
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public boolean isDone() {
+        return result.isDone();
+    }
+
+    public long getDone() {
+        return done.sum();
+    }
+
+    // 0 until the source has been decoded
+    public long getTotal() {
+        return total;
+    }
+
+    public double getProgress() {
+        long total = this.total;
+        return total == 0 ? 0 : Math.min(1.0, (double) done.sum() / total);
+    }
+
+    public RenderStats get() throws InterruptedException, ExecutionException {
+        return result.get();
+    }
+
+    // runs on the event dispatch thread with either the stats or the failure, a CancellationException if cancelled
+    public void whenDone(BiConsumer<RenderStats, Throwable> callback) {
+        result.whenComplete((stats, error) -> {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            SwingUtilities.invokeLater(() -> callback.accept(stats, cause));
+        });
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2025 cire3. All Rights Reserved.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package me.cire3.apcsp.create;
+
+public class RenderStats {
+    private final int width;
+    private final int height;
+    private final int tiles;
+    private final int parallelism;
+    private final long wallNanos;
+    private final long busyNanos;
+    private final long[] generatorNanos;
+    private final long compositeNanos;
+    private final long allocatedBytes;
+
+    public RenderStats(int width, int height, int tiles, int parallelism, long wallNanos, long busyNanos) {
+        this(width, height, tiles, parallelism, wallNanos, busyNanos, new long[0], 0, 0);
+    }
+
+    public RenderStats(int width, int height, int tiles, int parallelism, long wallNanos, long busyNanos,
+                       long[] generatorNanos, long compositeNanos, long allocatedBytes) {
+        this.width = width;
+        this.height = height;
+        this.tiles = tiles;
+        this.parallelism = parallelism;
+        this.wallNanos = wallNanos;
+        this.busyNanos = busyNanos;
+        this.generatorNanos = generatorNanos.clone();
+        this.compositeNanos = compositeNanos;
+        this.allocatedBytes = allocatedBytes;
+    }
+
+    // stacks the stats of the band rendered below this one
+    public RenderStats append(RenderStats band) {
+        long[] generators = new long[Math.max(generatorNanos.length, band.generatorNanos.length)];
+        for (int i = 0; i < generators.length; i++) {
+            generators[i] = (i < generatorNanos.length ? generatorNanos[i] : 0)
+                    + (i < band.generatorNanos.length ? band.generatorNanos[i] : 0);
+        }
+        return new RenderStats(width, height + band.height, tiles + band.tiles, parallelism,
+                wallNanos + band.wallNanos, busyNanos + band.busyNanos, generators,
+                compositeNanos + band.compositeNanos, allocatedBytes + band.allocatedBytes);
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getTiles() {
+        return tiles;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public long getWallNanos() {
+        return wallNanos;
+    }
+
+    public long getBusyNanos() {
+        return busyNanos;
+    }
+
+    // time spent in each generator's fillRegion, summed over all workers, in pipeline order
+    public long[] getGeneratorNanos() {
+        return generatorNanos.clone();
+    }
+
+    public long getCompositeNanos() {
+        return compositeNanos;
+    }
+
+    // bytes allocated by the tile workers while rendering
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    // time the tiles would have taken back to back on one thread, divided by the time they actually took
+    public double getSpeedup() {
+        return wallNanos == 0 ? 1 : (double) busyNanos / wallNanos;
+    }
+
+    // 1.0 means every worker was rendering tiles for the whole wall time
+    public double getEfficiency() {
+        return getSpeedup() / parallelism;
+    }
+
+    public double getMegapixelsPerSecond() {
+        return wallNanos == 0 ? 0 : (double) width * height / wallNanos * 1e3;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%dx%d in %.1f ms, %d tiles on %d threads, %.2f MP/s, speedup %.2fx, efficiency %.0f%%",
+                width, height, wallNanos / 1e6, tiles, parallelism, getMegapixelsPerSecond(),
+                getSpeedup(), getEfficiency() * 100);
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2025 cire3. All Rights Reserved.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package me.cire3.apcsp.create;
+
+import me.cire3.apcsp.create.cache.NoiseFieldCache;
+import me.cire3.apcsp.create.cache.ResultCache;
+import me.cire3.apcsp.create.metrics.Stage;
+import me.cire3.apcsp.create.noise.NoiseGenerator;
+import me.cire3.apcsp.create.noise.WeightedGenerator;
+import me.cire3.apcsp.create.pipeline.PipelineCompiler;
+import me.cire3.apcsp.create.png.PngEncoder;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Dimension;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+
+// renders images that do not fit in the heap: the source is decoded one band at a time through
+// ImageReadParam.setSourceRegion and the PNG encoder pulls the output band by band, so only two bands are resident
+public class StreamingProcessor {
+    public static final int DEFAULT_BAND_HEIGHT = 256;
+
+    private final File inputFile;
+    private final File outputFile;
+    private final List<WeightedGenerator> generators;
+    private final int parallelism;
+    private final int bandHeight;
+    private final NoiseFieldCache cache;
+    private final int compressionLevel;
+    private final ResultCache results;
+
+    public StreamingProcessor(File inputFile, File outputFile, List<WeightedGenerator> generators, int parallelism) {
+        this(inputFile, outputFile, generators, parallelism, DEFAULT_BAND_HEIGHT);
+    }
+
+    public StreamingProcessor(File inputFile, File outputFile, List<WeightedGenerator> generators,
+                              int parallelism, int bandHeight) {
+        this(inputFile, outputFile, generators, parallelism, bandHeight, null);
+    }
+
+    public StreamingProcessor(File inputFile, File outputFile, List<WeightedGenerator> generators,
+                              int parallelism, int bandHeight, NoiseFieldCache cache) {
+        this(inputFile, outputFile, generators, parallelism, bandHeight, cache, PngEncoder.DEFAULT_LEVEL);
+    }
+
+    public StreamingProcessor(File inputFile, File outputFile, List<WeightedGenerator> generators,
+                              int parallelism, int bandHeight, NoiseFieldCache cache, int compressionLevel) {
+        this(inputFile, outputFile, generators, parallelism, bandHeight, cache, compressionLevel, null);
+    }
+
+    public StreamingProcessor(File inputFile, File outputFile, List<WeightedGenerator> generators,
+                              int parallelism, int bandHeight, NoiseFieldCache cache, int compressionLevel,
+                              ResultCache results) {
+        this.inputFile = inputFile;
+        this.outputFile = outputFile;
+        this.generators = generators;
+        this.parallelism = parallelism;
+        this.bandHeight = bandHeight;
+        this.cache = cache;
+        this.compressionLevel = compressionLevel;
+        this.results = results;
+    }
+
+    public RenderStats process() throws IOException {
+        String key = results == null ? null : results.key(inputFile.toPath(), generators, compressionLevel);
+        if (key != null) {
+            Dimension size = results.restore(key, outputFile.toPath());
+            if (size != null) {
+                return new RenderStats(size.width, size.height, 0, parallelism, 0, 0);
+            }
+        }
+        RenderStats stats = render();
+        if (key != null) {
+            results.store(key, outputFile.toPath());
+        }
+        return stats;
+    }
+
+    private RenderStats render() throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(inputFile)) {
+            if (in == null) {
+                throw new IOException("Cannot open " + inputFile.getAbsolutePath());
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                throw new IOException("Unsupported image format: " + inputFile.getAbsolutePath());
+            }
+
+            ImageReader reader = readers.next();
+            try (TileRenderer renderer = new TileRenderer(parallelism, cache);
+                 PngEncoder encoder = new PngEncoder(compressionLevel, parallelism)) {
+                reader.setInput(in, false, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+
+                // decode and render run band by band inside the encoder, so their times are summed per band and
+                // encode is whatever is left of the write
+                List<NoiseGenerator> pipeline = List.of(PipelineCompiler.compile(generators, cache));
+                RenderStats[] total = new RenderStats[1];
+                long[] decodeNanos = new long[1];
+                BandedImage output = new BandedImage(width, height, bandHeight, (y0, rows, target) -> {
+                    long start = System.nanoTime();
+                    ImageReadParam param = reader.getDefaultReadParam();
+                    param.setSourceRegion(new Rectangle(0, y0, width, rows));
+                    BufferedImage source = reader.read(0, param);
+                    decodeNanos[0] += System.nanoTime() - start;
+
+                    RenderStats band = renderer.render(source, target, 0, y0, pipeline);
+                    total[0] = total[0] == null ? band : total[0].append(band);
+                });
+
+                // bands are decoded and rendered on this thread while earlier chunks compress on the encoder's workers
+                long start = System.nanoTime();
+                encoder.encode(width, height, output::readRow, outputFile);
+                long writeNanos = System.nanoTime() - start;
+
+                long pixels = (long) width * height;
+                Stage.record("decode", decodeNanos[0], pixels, 0);
+                Stage.record("render", total[0].getWallNanos(), pixels, total[0].getAllocatedBytes());
+                Stage.record("encode", writeNanos - decodeNanos[0] - total[0].getWallNanos(), pixels, 0);
+                return total[0];
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+}
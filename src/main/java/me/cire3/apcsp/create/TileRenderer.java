@@ -0,0 +1,351 @@
+/*
+ * Copyright (c) 2025 cire3. All Rights Reserved.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package me.cire3.apcsp.create;
+
+import me.cire3.apcsp.create.buffer.OffHeapPlane;
+import me.cire3.apcsp.create.cache.NoiseFieldCache;
+import me.cire3.apcsp.create.metrics.GeneratorEvent;
+import me.cire3.apcsp.create.metrics.MetricsRegistry;
+import me.cire3.apcsp.create.metrics.Stage;
+import me.cire3.apcsp.create.noise.NoiseGenerator;
+import me.cire3.apcsp.create.noise.WeightedGenerator;
+import me.cire3.apcsp.create.pipeline.CompiledPipeline;
+import me.cire3.apcsp.create.simd.Kernels;
+
+import java.awt.image.BufferedImage;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongConsumer;
+
+public class TileRenderer implements AutoCloseable {
+    // 64x64 floats is 16 KiB of scratch, which leaves room in L1/L2 for the source and output rows
+    public static final int DEFAULT_TILE_SIZE = 64;
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static final boolean CPU_TIME = THREADS.isCurrentThreadCpuTimeSupported();
+
+    // timing the layers of a compiled pipeline one by one gives up its fused kernel, so it is only done while
+    // --metrics asks for it or a flight recording has generator events enabled
+    private static volatile boolean layerTiming;
+
+    private final int parallelism;
+    private final int tileSize;
+    private final ForkJoinPool pool;
+    private final NoiseFieldCache cache;
+    private final ThreadLocal<float[]> scratch;
+    private final ThreadLocal<int[]> rows;
+
+    public TileRenderer(int parallelism) {
+        this(parallelism, DEFAULT_TILE_SIZE);
+    }
+
+    public TileRenderer(int parallelism, NoiseFieldCache cache) {
+        this(parallelism, DEFAULT_TILE_SIZE, cache);
+    }
+
+    public TileRenderer(int parallelism, int tileSize) {
+        this(parallelism, tileSize, null);
+    }
+
+    public TileRenderer(int parallelism, int tileSize, NoiseFieldCache cache) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be at least 1: " + parallelism);
+        }
+        if (tileSize < 1) {
+            throw new IllegalArgumentException("tileSize must be at least 1: " + tileSize);
+        }
+        this.parallelism = parallelism;
+        this.tileSize = tileSize;
+        this.pool = parallelism > 1 ? new ForkJoinPool(parallelism) : null;
+        this.cache = cache;
+        this.scratch = ThreadLocal.withInitial(() -> new float[tileSize * tileSize]);
+        this.rows = ThreadLocal.withInitial(() -> new int[tileSize]);
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public int getTileSize() {
+        return tileSize;
+    }
+
+    public static boolean isLayerTiming() {
+        return layerTiming;
+    }
+
+    public static void setLayerTiming(boolean enabled) {
+        layerTiming = enabled;
+    }
+
+    public RenderStats render(BufferedImage source, BufferedImage output, List<? extends NoiseGenerator> generators) {
+        return render(source, output, 0, 0, generators);
+    }
+
+    // renders a region whose top-left pixel sits at (originX, originY) of the full image, so generators sample
+    // the same global coordinates whether the image is rendered whole or in bands
+    public RenderStats render(BufferedImage source, BufferedImage output, int originX, int originY,
+                              List<? extends NoiseGenerator> generators) {
+        return render(source, output, originX, originY, generators, () -> false);
+    }
+
+    // cancelled is polled before every tile; once it returns true the render stops with a CancellationException
+    public RenderStats render(BufferedImage source, BufferedImage output, int originX, int originY,
+                              List<? extends NoiseGenerator> generators, BooleanSupplier cancelled) {
+        return render(source, output, originX, originY, generators, cancelled, pixels -> {
+        });
+    }
+
+    // progress receives the pixel count of every finished tile, from whichever worker finished it
+    public RenderStats render(BufferedImage source, BufferedImage output, int originX, int originY,
+                              List<? extends NoiseGenerator> generators, BooleanSupplier cancelled,
+                              LongConsumer progress) {
+        return render(RasterAccess.reader(source), RasterAccess.writer(output), source.getWidth(), source.getHeight(),
+                originX, originY, generators, cancelled, progress);
+    }
+
+    public RenderStats render(BufferedImage source, OffHeapPlane output, List<? extends NoiseGenerator> generators) {
+        return render(source, output, generators, () -> false, pixels -> {
+        });
+    }
+
+    public RenderStats render(BufferedImage source, OffHeapPlane output, List<? extends NoiseGenerator> generators,
+                              BooleanSupplier cancelled, LongConsumer progress) {
+        return render(RasterAccess.reader(source), RasterAccess.writer(output), source.getWidth(), source.getHeight(),
+                0, 0, generators, cancelled, progress);
+    }
+
+    private RenderStats render(RasterAccess.RowReader source, RasterAccess.RowWriter output, int width, int height,
+                               int originX, int originY, List<? extends NoiseGenerator> generators,
+                               BooleanSupplier cancelled, LongConsumer progress) {
+        int tilesX = (width + tileSize - 1) / tileSize;
+        int tilesY = (height + tileSize - 1) / tileSize;
+
+        Frame frame = new Frame(source, output, generators, width, height, originX, originY, tilesX, cancelled,
+                progress);
+        TileTask root = new TileTask(frame, 0, tilesX * tilesY);
+
+        long start = System.nanoTime();
+        if (pool == null) {
+            root.compute();
+        } else {
+            pool.invoke(root);
+        }
+        long wallNanos = System.nanoTime() - start;
+
+        long[] generatorNanos = new long[frame.generatorNanos.length];
+        for (int i = 0; i < generatorNanos.length; i++) {
+            generatorNanos[i] = frame.generatorNanos[i].sum();
+        }
+        RenderStats stats = new RenderStats(width, height, tilesX * tilesY, parallelism, wallNanos,
+                frame.busyNanos.sum(), generatorNanos, frame.compositeNanos.sum(), frame.allocated.sum());
+        publish(frame.timed, stats);
+        return stats;
+    }
+
+    // the generators as timed per layer: a compiled pipeline counts as its layers
+    private static List<NoiseGenerator> layers(List<? extends NoiseGenerator> generators) {
+        List<NoiseGenerator> layers = new ArrayList<>();
+        for (NoiseGenerator generator : generators) {
+            if (generator instanceof CompiledPipeline compiled) {
+                layers.addAll(compiled.getLayers());
+            } else {
+                layers.add(generator);
+            }
+        }
+        return layers;
+    }
+
+    private static void publish(List<? extends NoiseGenerator> generators, RenderStats stats) {
+        MetricsRegistry registry = MetricsRegistry.GLOBAL;
+        long pixels = (long) stats.getWidth() * stats.getHeight();
+        long[] generatorNanos = stats.getGeneratorNanos();
+        for (int i = 0; i < generatorNanos.length; i++) {
+            String name = nameOf(generators.get(i));
+            registry.counter("generator." + name + ".nanos").add(generatorNanos[i]);
+
+            GeneratorEvent event = new GeneratorEvent();
+            if (event.shouldCommit()) {
+                event.generator = name;
+                event.samples = pixels;
+                event.time = generatorNanos[i];
+                event.commit();
+            }
+        }
+        registry.counter("stage.composite.nanos").add(stats.getCompositeNanos());
+        registry.counter("pixels.processed").add(pixels);
+    }
+
+    private static String nameOf(NoiseGenerator generator) {
+        while (generator instanceof WeightedGenerator weighted) {
+            generator = weighted.getGenerator();
+        }
+        return generator.getClass().getSimpleName();
+    }
+
+    // one fused pass per tile: generators accumulate into the scratch buffer, then each row is read, composited
+    // and written back without touching the ColorModel
+    private void renderTile(Frame frame, int x0, int y0, int width, int height) {
+        float[] noise = scratch.get();
+        Arrays.fill(noise, 0, width * height, 1.0f);
+
+        for (int i = 0; i < frame.generators.size(); i++) {
+            NoiseGenerator generator = frame.generators.get(i);
+            if (frame.timers[i] != null) {
+                ((CompiledPipeline) generator).fillRegion(noise, 0, width, frame.originX + x0, frame.originY + y0,
+                        width, height, 1f, frame.timers[i]);
+                continue;
+            }
+            long start = System.nanoTime();
+            // a compiled pipeline routes its cacheable layers through the cache itself
+            if (cache != null && !(generator instanceof CompiledPipeline)) {
+                cache.fillRegion(generator, noise, 0, width, frame.originX + x0, frame.originY + y0, width, height, 1f);
+            } else {
+                generator.fillRegion(noise, 0, width, frame.originX + x0, frame.originY + y0, width, height, 1f);
+            }
+            frame.generatorNanos[frame.firstLayer[i]].add(System.nanoTime() - start);
+        }
+
+        int[] argb = rows.get();
+        Kernels kernels = Kernels.get();
+        long start = System.nanoTime();
+        for (int j = 0; j < height; j++) {
+            frame.source.read(x0, y0 + j, width, argb);
+            kernels.composite(noise, j * width, argb, width);
+            frame.output.write(x0, y0 + j, width, argb);
+        }
+        frame.compositeNanos.add(System.nanoTime() - start);
+    }
+
+    // thread cpu time keeps oversubscribed or descheduled workers from inflating the reported speedup
+    private static long busyClock() {
+        return CPU_TIME ? THREADS.getCurrentThreadCpuTime() : System.nanoTime();
+    }
+
+    @Override
+    public void close() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    private static class Frame {
+        private final RasterAccess.RowReader source;
+        private final RasterAccess.RowWriter output;
+        private final List<? extends NoiseGenerator> generators;
+        // what generatorNanos are reported against, the layers of compiled pipelines when timing them
+        private final List<? extends NoiseGenerator> timed;
+        private final int width;
+        private final int height;
+        private final int originX;
+        private final int originY;
+        private final int tilesX;
+        private final BooleanSupplier cancelled;
+        private final LongConsumer progress;
+        private final LongAdder busyNanos = new LongAdder();
+        // one adder per timed generator or layer, firstLayer maps a generator to its first adder
+        private final LongAdder[] generatorNanos;
+        private final int[] firstLayer;
+        // set for the compiled pipelines whose layers are timed one by one
+        private final CompiledPipeline.LayerTimer[] timers;
+        private final LongAdder compositeNanos = new LongAdder();
+        private final LongAdder allocated = new LongAdder();
+
+        private Frame(RasterAccess.RowReader source, RasterAccess.RowWriter output,
+                      List<? extends NoiseGenerator> generators, int width, int height,
+                      int originX, int originY, int tilesX, BooleanSupplier cancelled, LongConsumer progress) {
+            this.source = source;
+            this.output = output;
+            this.generators = generators;
+            this.width = width;
+            this.height = height;
+            this.originX = originX;
+            this.originY = originY;
+            this.tilesX = tilesX;
+            this.cancelled = cancelled;
+            this.progress = progress;
+            this.firstLayer = new int[generators.size()];
+            this.timers = new CompiledPipeline.LayerTimer[generators.size()];
+            boolean perLayer = layerTiming || new GeneratorEvent().isEnabled();
+            this.timed = perLayer ? layers(generators) : generators;
+            int layers = 0;
+            for (int i = 0; i < generators.size(); i++) {
+                firstLayer[i] = layers;
+                layers += perLayer && generators.get(i) instanceof CompiledPipeline compiled
+                        ? compiled.getLayers().size() : 1;
+            }
+            LongAdder[] adders = new LongAdder[layers];
+            for (int i = 0; i < adders.length; i++) {
+                adders[i] = new LongAdder();
+            }
+            for (int i = 0; perLayer && i < generators.size(); i++) {
+                if (generators.get(i) instanceof CompiledPipeline) {
+                    int first = firstLayer[i];
+                    timers[i] = (layer, nanos) -> adders[first + layer].add(nanos);
+                }
+            }
+            this.generatorNanos = adders;
+        }
+    }
+
+    private class TileTask extends RecursiveAction {
+        private final Frame frame;
+        private final int from;
+        private final int to;
+
+        private TileTask(Frame frame, int from, int to) {
+            this.frame = frame;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (pool != null && to - from > 1) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new TileTask(frame, from, mid), new TileTask(frame, mid, to));
+                return;
+            }
+
+            long start = busyClock();
+            long startAllocated = Stage.allocatedBytes();
+            try {
+                for (int tile = from; tile < to; tile++) {
+                    if (frame.cancelled.getAsBoolean()) {
+                        throw new CancellationException();
+                    }
+                    int x0 = (tile % frame.tilesX) * tileSize;
+                    int y0 = (tile / frame.tilesX) * tileSize;
+                    int width = Math.min(tileSize, frame.width - x0);
+                    int height = Math.min(tileSize, frame.height - y0);
+                    renderTile(frame, x0, y0, width, height);
+                    frame.progress.accept((long) width * height);
+                }
+            } finally {
+                frame.busyNanos.add(busyClock() - start);
+                frame.allocated.add(Stage.allocatedBytes() - startAllocated);
+            }
+        }
+    }
+}
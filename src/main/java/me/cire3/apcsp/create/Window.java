@@ -16,22 +16,49 @@
 package me.cire3.apcsp.create;
 
 import com.formdev.flatlaf.util.SystemInfo;
+import me.cire3.apcsp.create.anim.FrameReader;
+import me.cire3.apcsp.create.cache.NoiseFieldCache;
+import me.cire3.apcsp.create.metrics.MetricsRegistry;
 import me.cire3.apcsp.create.noise.*;
+import me.cire3.apcsp.create.pipeline.PipelineSnapshot;
+import me.cire3.apcsp.create.pipeline.PipelineSpec;
+import me.cire3.apcsp.create.view.ComparisonCanvas;
 
 import javax.imageio.ImageIO;
 import javax.swing.*;
 import javax.swing.filechooser.FileFilter;
 import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 public class Window extends JFrame {
     private static final Dimension FRAME_SIZE = new Dimension(1100, 700);
+    private static final String PRESET_EXTENSION = ".noise";
 
     private File selectedFile;
+    // EDT only, the sliders edit these objects in place
     private final List<WeightedGenerator> generators = new ArrayList<>();
+    // republished after every edit, renders and the preview only ever see a snapshot
+    private final AtomicReference<PipelineSnapshot> pipeline = new AtomicReference<>(PipelineSnapshot.EMPTY);
+    private final NoiseFieldCache fieldCache = new NoiseFieldCache(128L << 20);
+    private final PreviewPanel previewPanel = new PreviewPanel(new Dimension(480, 270));
+    private final PreviewRenderer previewRenderer = new PreviewRenderer(fieldCache, previewPanel::setImage);
+    private final ExecutorService renderExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "Noise Render");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // EDT only
+    private RenderJob currentJob;
 
     public Window(String windowTitle) {
         super(windowTitle);
@@ -90,6 +117,10 @@ public class Window extends JFrame {
         selectFilePanel.setOpaque(false);
         bgPanel.add(selectFilePanel);
 
+        bgPanel.add(Box.createVerticalStrut(10));
+        bgPanel.add(previewPanel);
+        bgPanel.add(Box.createVerticalStrut(10));
+
         final JButton loadFileButton = new JButton("Choose Image");
         loadFileButton.setFont(Main.NUNITO_FONT_20);
         loadFileButton.setAlignmentY(0.05F);
@@ -120,6 +151,7 @@ public class Window extends JFrame {
 
             if (result == JFileChooser.APPROVE_OPTION) {
                 selectedFile = chooser.getSelectedFile();
+                previewRenderer.setSource(selectedFile, pipeline.get());
 
                 System.out.println("Selected file: " + selectedFile);
             }
@@ -157,6 +189,29 @@ public class Window extends JFrame {
             generatorPanel.repaint();
         });
 
+        JPanel presetPanel = new JPanel();
+        presetPanel.setOpaque(false);
+        presetPanel.setLayout(new BoxLayout(presetPanel, BoxLayout.X_AXIS));
+        presetPanel.setAlignmentX(Component.CENTER_ALIGNMENT);
+        presetPanel.setMaximumSize(new Dimension(300, 40));
+        generatorPanel.add(presetPanel);
+        generatorPanel.add(Box.createVerticalStrut(15));
+
+        JButton savePresetButton = new JButton("Save Preset");
+        savePresetButton.setMaximumSize(new Dimension(140, 40));
+        savePresetButton.addActionListener(e -> savePreset());
+        presetPanel.add(savePresetButton);
+        presetPanel.add(Box.createHorizontalStrut(10));
+
+        JButton loadPresetButton = new JButton("Load Preset");
+        loadPresetButton.setMaximumSize(new Dimension(140, 40));
+        loadPresetButton.addActionListener(e -> {
+            loadPreset(generatorContainer);
+            generatorPanel.revalidate();
+            generatorPanel.repaint();
+        });
+        presetPanel.add(loadPresetButton);
+
         bgPanel.add(generatorPanel);
 
         final JPanel launchAlignmentPanel = new JPanel();
@@ -172,21 +227,171 @@ public class Window extends JFrame {
         launchButton.setMaximumSize(new Dimension(150, 75));
         launchButton.setBackground(new Color(63, 199, 63));
         launchButton.setOpaque(false);
+        launchAlignmentPanel.add(launchButton);
+
+        final JPanel progressPanel = new JPanel();
+        progressPanel.setLayout(new BoxLayout(progressPanel, BoxLayout.X_AXIS));
+        progressPanel.setAlignmentX(Component.CENTER_ALIGNMENT);
+        progressPanel.setMaximumSize(new Dimension(420, 40));
+        progressPanel.setOpaque(false);
+        progressPanel.setVisible(false);
+        bgPanel.add(progressPanel);
+
+        final JProgressBar progressBar = new JProgressBar(0, 1000);
+        progressBar.setStringPainted(true);
+        progressBar.setMaximumSize(new Dimension(300, 24));
+        progressPanel.add(progressBar);
+        progressPanel.add(Box.createHorizontalStrut(10));
+
+        final JButton cancelButton = new JButton("Cancel");
+        cancelButton.setMaximumSize(new Dimension(100, 30));
+        cancelButton.addActionListener((e) -> {
+            if (currentJob != null) {
+                currentJob.cancel();
+                cancelButton.setEnabled(false);
+            }
+        });
+        progressPanel.add(cancelButton);
+
         launchButton.addActionListener((e) -> {
-            (new Processor(selectedFile, generators)).run();
+            if (selectedFile == null) {
+                System.out.println("Choose an image first");
+                return;
+            }
+            File input = selectedFile;
+            int threads = Runtime.getRuntime().availableProcessors();
+            // animated GIFs render every frame into an animated GIF, stills into a PNG
+            boolean animated = FrameReader.isAnimation(input);
+            File output = animated ? AnimationProcessor.DEFAULT_OUTPUT : Processor.DEFAULT_OUTPUT;
+            // the job renders the configuration as it is now, later edits only reach later jobs
+            RenderJob job = animated
+                    ? new AnimationProcessor(input, output, pipeline.get(), threads, fieldCache).start(renderExecutor)
+                    : new Processor(input, output, pipeline.get(), threads, fieldCache).start(renderExecutor);
+            currentJob = job;
+
+            launchButton.setEnabled(false);
+            cancelButton.setEnabled(true);
+            progressBar.setValue(0);
+            progressPanel.setVisible(true);
+            bgPanel.revalidate();
+            // polled rather than pushed so tile workers never flood the event queue
+            Timer poll = new Timer(100, (tick) -> progressBar.setValue((int) (job.getProgress() * 1000)));
+            poll.start();
+
+            job.whenDone((stats, error) -> {
+                poll.stop();
+                currentJob = null;
+                progressPanel.setVisible(false);
+                launchButton.setEnabled(true);
+                bgPanel.revalidate();
+                // hovering the button shows the stage and generator timings collected so far
+                launchButton.setToolTipText("<html><pre>" + MetricsRegistry.GLOBAL.describe() + "</pre></html>");
+
+                if (error == null) {
+                    System.out.println("Rendered " + stats);
+                    System.out.println("Output: " + output.getAbsolutePath());
+                    showComparison(input, output);
+                } else if (error instanceof CancellationException) {
+                    System.out.println("Cancelled processing " + input.getAbsolutePath());
+                } else {
+                    System.out.println("Error processing file: " + input.getAbsolutePath());
+                    System.out.println(error);
+                }
+            });
         });
-        launchAlignmentPanel.add(launchButton);
 
         setContentPane(scrollPane);
     }
 
+    private void showComparison(File before, File after) {
+        ComparisonCanvas canvas = new ComparisonCanvas();
+        JDialog dialog = new JDialog(this, "Before / After: " + after.getName(), false);
+        dialog.setDefaultCloseOperation(WindowConstants.DISPOSE_ON_CLOSE);
+        dialog.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                canvas.close();
+            }
+        });
+        dialog.setContentPane(canvas);
+        dialog.pack();
+        dialog.setLocationRelativeTo(this);
+        dialog.setVisible(true);
+        canvas.load(before, after);
+    }
+
+    // presets are PipelineSpec text, so a saved preset also works as a batch --config file
+    private void savePreset() {
+        JFileChooser chooser = presetChooser();
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        File file = chooser.getSelectedFile();
+        if (!file.getName().contains(".")) {
+            file = new File(file.getPath() + PRESET_EXTENSION);
+        }
+        try {
+            PipelineSpec.of(generators).write(file.toPath());
+            System.out.println("Saved preset: " + file.getAbsolutePath());
+        } catch (Exception e) {
+            System.out.println("Error saving preset: " + file.getAbsolutePath());
+            System.out.println(e);
+        }
+    }
+
+    private void loadPreset(JPanel container) {
+        JFileChooser chooser = presetChooser();
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        File file = chooser.getSelectedFile();
+        List<WeightedGenerator> loaded;
+        try {
+            loaded = PipelineSpec.read(file.toPath()).toGenerators();
+        } catch (Exception e) {
+            System.out.println("Error loading preset: " + file.getAbsolutePath());
+            System.out.println(e);
+            return;
+        }
+
+        generators.clear();
+        container.removeAll();
+        for (WeightedGenerator generator : loaded) {
+            container.add(createGeneratorPanel(container, generator));
+        }
+        generatorsChanged();
+        container.revalidate();
+        container.repaint();
+        System.out.println("Loaded preset: " + file.getAbsolutePath());
+    }
+
+    private static JFileChooser presetChooser() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setFileSelectionMode(JFileChooser.FILES_ONLY);
+        chooser.addChoosableFileFilter(new FileFilter() {
+            @Override
+            public boolean accept(File f) {
+                return f.isDirectory() || f.getName().toLowerCase().endsWith(PRESET_EXTENSION);
+            }
+
+            @Override
+            public String getDescription() {
+                return "Noise Presets (*" + PRESET_EXTENSION + ")";
+            }
+        });
+        return chooser;
+    }
+
     private void showAddGeneratorDialog(JPanel container, JScrollPane scrollPane) {
         String[] choices = {
                 "Gaussian Noise",
                 "Perlin Noise",
                 "Salt & Pepper Noise",
                 "Value Noise",
-                "White Noise"
+                "White Noise",
+                "Fractal Noise",
+                "Gradient Noise",
+                "Simplex Noise"
         };
 
         String result = (String) JOptionPane.showInputDialog(
@@ -201,7 +406,18 @@ public class Window extends JFrame {
 
         if (result == null) return;
 
-        JPanel panel = createGeneratorPanel(container, result);
+        NoiseGenerator gen = switch (result) {
+            case "Gaussian Noise" -> new GaussianNoiseGenerator(0, 1);
+            case "Perlin Noise" -> new PerlinNoiseGenerator(1F);
+            case "Salt & Pepper Noise" -> new SaltAndPepperNoiseGenerator(0.2F);
+            case "Value Noise" -> new ValueNoiseGenerator(256, 256, 0.2F);
+            case "Fractal Noise" -> new FractalNoiseGenerator(5, 1 / 64F);
+            case "Gradient Noise" -> new GradientNoiseGenerator(1 / 32F, 1F);
+            case "Simplex Noise" -> new OpenSimplex2NoiseGenerator(1 / 32F, 1F);
+            default -> new WhiteNoiseGenerator();
+        };
+
+        JPanel panel = createGeneratorPanel(container, new WeightedGenerator(gen, 1f));
         container.add(panel);
         container.revalidate();
         container.repaint();
@@ -212,7 +428,22 @@ public class Window extends JFrame {
         });
     }
 
-    private JPanel createGeneratorPanel(JPanel generatorContainer, String type) {
+    private static String typeName(NoiseGenerator gen) {
+        if (gen instanceof GaussianNoiseGenerator) return "Gaussian Noise";
+        if (gen instanceof PerlinNoiseGenerator) return "Perlin Noise";
+        if (gen instanceof SaltAndPepperNoiseGenerator) return "Salt & Pepper Noise";
+        if (gen instanceof ValueNoiseGenerator) return "Value Noise";
+        if (gen instanceof FractalNoiseGenerator) return "Fractal Noise";
+        if (gen instanceof GradientNoiseGenerator) return "Gradient Noise";
+        if (gen instanceof OpenSimplex2NoiseGenerator) return "Simplex Noise";
+        return "White Noise";
+    }
+
+    // the sliders start at the generator's current values, so a loaded preset shows what it renders
+    private JPanel createGeneratorPanel(JPanel generatorContainer, WeightedGenerator wg) {
+        NoiseGenerator gen = wg.getGenerator();
+        String type = typeName(gen);
+
         JPanel p = new JPanel();
         p.setOpaque(false);
         p.setForeground(Color.BLACK);
@@ -231,7 +462,7 @@ public class Window extends JFrame {
         removeBtn.setAlignmentX(Component.CENTER_ALIGNMENT);
         p.add(removeBtn);
 
-        JSlider weight = new JSlider(0, 100, 100);
+        JSlider weight = slider(0, 100, Math.round(wg.getWeight() * 100));
         weight.setOpaque(false);
         weight.setMaximumSize(new Dimension(300, 40));
         weight.setForeground(Color.BLACK);
@@ -247,19 +478,12 @@ public class Window extends JFrame {
         p.add(weightLabel);
         p.add(weight);
 
-        NoiseGenerator gen = switch (type) {
-            case "Gaussian Noise" -> new GaussianNoiseGenerator(0, 1);
-            case "Perlin Noise" -> new PerlinNoiseGenerator(1F);
-            case "Salt & Pepper Noise" -> new SaltAndPepperNoiseGenerator(0.2F);
-            case "Value Noise" -> new ValueNoiseGenerator(256, 256, 0.2F);
-            default -> new WhiteNoiseGenerator();
-        };
-
-        WeightedGenerator wg = new WeightedGenerator(gen, 1f);
         generators.add(wg);
+        generatorsChanged();
 
         removeBtn.addActionListener(e -> {
             generators.remove(wg);
+            generatorsChanged();
             generatorContainer.remove(p);
             generatorContainer.revalidate();
             generatorContainer.repaint();
@@ -267,6 +491,7 @@ public class Window extends JFrame {
 
         weight.addChangeListener(e -> {
             wg.setWeight(weight.getValue() / 100f);
+            generatorsChanged();
         });
 
         switch (type) {
@@ -274,6 +499,17 @@ public class Window extends JFrame {
             case "Perlin Noise" -> addScaleParam(p, gen, "Scale");
             case "Salt & Pepper Noise" -> addScaleParam(p, gen, "Probability");
             case "Value Noise" -> addScaleParam(p, gen, "Scale");
+            case "Fractal Noise" -> addFractalParams(p, (FractalNoiseGenerator) gen);
+            case "Gradient Noise" -> {
+                GradientNoiseGenerator g = (GradientNoiseGenerator) gen;
+                addFeatureSizeParam(p, Math.round(1 / g.getFrequency()), g::setFrequency);
+                addScaleParam(p, gen, "Scale");
+            }
+            case "Simplex Noise" -> {
+                OpenSimplex2NoiseGenerator g = (OpenSimplex2NoiseGenerator) gen;
+                addFeatureSizeParam(p, Math.round(1 / g.getFrequency()), g::setFrequency);
+                addScaleParam(p, gen, "Scale");
+            }
             default -> {}
         }
 
@@ -281,7 +517,7 @@ public class Window extends JFrame {
     }
 
     private void addGaussianParams(JPanel panel, GaussianNoiseGenerator g) {
-        JSlider meanSlider = new JSlider(-100, 100, 0);
+        JSlider meanSlider = slider(-100, 100, (int) Math.round(g.getMu() * 10));
         meanSlider.setMaximumSize(new Dimension(300, 40));
         meanSlider.setForeground(Color.BLACK);
         meanSlider.setAlignmentX(Component.CENTER_ALIGNMENT);
@@ -294,11 +530,12 @@ public class Window extends JFrame {
         panel.add(muLabel);
         panel.add(meanSlider);
 
-        meanSlider.addChangeListener(e ->
-                g.setMu(meanSlider.getValue() / 10f)
-        );
+        meanSlider.addChangeListener(e -> {
+            g.setMu(meanSlider.getValue() / 10f);
+            generatorsChanged();
+        });
 
-        JSlider stdSlider = new JSlider(1, 300, 100);
+        JSlider stdSlider = slider(1, 300, (int) Math.round(g.getSigma() * 100));
         stdSlider.setMaximumSize(new Dimension(300, 40));
         stdSlider.setForeground(Color.BLACK);
         stdSlider.setAlignmentX(Component.CENTER_ALIGNMENT);
@@ -311,13 +548,86 @@ public class Window extends JFrame {
         panel.add(sigmaLabel);
         panel.add(stdSlider);
 
-        stdSlider.addChangeListener(e ->
-                g.setSigma(stdSlider.getValue() / 100f)
-        );
+        stdSlider.addChangeListener(e -> {
+            g.setSigma(stdSlider.getValue() / 100f);
+            generatorsChanged();
+        });
+    }
+
+    private void addFractalParams(JPanel panel, FractalNoiseGenerator g) {
+        JComboBox<FractalNoiseGenerator.Mode> modeBox = new JComboBox<>(FractalNoiseGenerator.Mode.values());
+        modeBox.setMaximumSize(new Dimension(150, 30));
+        modeBox.setAlignmentX(Component.CENTER_ALIGNMENT);
+        modeBox.setSelectedItem(g.getMode());
+        panel.add(modeBox);
+
+        modeBox.addActionListener(e -> {
+            g.setMode((FractalNoiseGenerator.Mode) modeBox.getSelectedItem());
+            generatorsChanged();
+        });
+
+        JSlider octaveSlider = slider(1, 8, g.getOctaves());
+        octaveSlider.setMaximumSize(new Dimension(300, 40));
+        octaveSlider.setForeground(Color.BLACK);
+        octaveSlider.setAlignmentX(Component.CENTER_ALIGNMENT);
+
+        JLabel octaveLabel = new JLabel("Octaves:");
+        octaveLabel.setFont(Main.NUNITO_FONT_12);
+        octaveLabel.setForeground(Color.BLACK);
+        octaveLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
+
+        panel.add(octaveLabel);
+        panel.add(octaveSlider);
+
+        octaveSlider.addChangeListener(e -> {
+            g.setOctaves(octaveSlider.getValue());
+            generatorsChanged();
+        });
+
+        addFeatureSizeParam(panel, Math.round(1 / g.getFrequency()), g::setFrequency);
+
+        JSlider gainSlider = slider(10, 90, Math.round(g.getGain() * 100));
+        gainSlider.setMaximumSize(new Dimension(300, 40));
+        gainSlider.setForeground(Color.BLACK);
+        gainSlider.setAlignmentX(Component.CENTER_ALIGNMENT);
+
+        JLabel gainLabel = new JLabel("Gain:");
+        gainLabel.setFont(Main.NUNITO_FONT_12);
+        gainLabel.setForeground(Color.BLACK);
+        gainLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
+
+        panel.add(gainLabel);
+        panel.add(gainSlider);
+
+        gainSlider.addChangeListener(e -> {
+            g.setGain(gainSlider.getValue() / 100f);
+            generatorsChanged();
+        });
+    }
+
+    // the slider picks the feature size in pixels, frequency is its inverse
+    private void addFeatureSizeParam(JPanel panel, int size, Consumer<Float> setFrequency) {
+        JSlider sizeSlider = slider(4, 256, size);
+        sizeSlider.setMaximumSize(new Dimension(300, 40));
+        sizeSlider.setForeground(Color.BLACK);
+        sizeSlider.setAlignmentX(Component.CENTER_ALIGNMENT);
+
+        JLabel sizeLabel = new JLabel("Feature Size:");
+        sizeLabel.setFont(Main.NUNITO_FONT_12);
+        sizeLabel.setForeground(Color.BLACK);
+        sizeLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
+
+        panel.add(sizeLabel);
+        panel.add(sizeSlider);
+
+        sizeSlider.addChangeListener(e -> {
+            setFrequency.accept(1f / sizeSlider.getValue());
+            generatorsChanged();
+        });
     }
 
     private void addScaleParam(JPanel panel, NoiseGenerator gen, String name) {
-        JSlider slider = new JSlider(1, 200, 10);
+        JSlider slider = slider(1, 200, scaleSliderValue(gen));
         slider.setMaximumSize(new Dimension(300, 40));
         slider.setToolTipText(name);
         slider.setForeground(Color.BLACK);
@@ -334,7 +644,31 @@ public class Window extends JFrame {
         slider.addChangeListener(e -> {
             if (gen instanceof PerlinNoiseGenerator p) p.setScale(slider.getValue() / 100f);
             if (gen instanceof ValueNoiseGenerator v) v.setScale(slider.getValue() / 100f);
+            if (gen instanceof GradientNoiseGenerator g) g.setScale(slider.getValue() / 10f);
+            if (gen instanceof OpenSimplex2NoiseGenerator s) s.setScale(slider.getValue() / 10f);
             if (gen instanceof SaltAndPepperNoiseGenerator s) s.setProbability(slider.getValue() / 200f);
+            generatorsChanged();
         });
     }
+
+    // presets can hold values past a slider's range, JSlider would reject them
+    private static JSlider slider(int min, int max, int value) {
+        return new JSlider(min, max, Math.max(min, Math.min(max, value)));
+    }
+
+    // inverse of the mapping in addScaleParam
+    private static int scaleSliderValue(NoiseGenerator gen) {
+        if (gen instanceof PerlinNoiseGenerator p) return Math.round(p.getScale() * 100);
+        if (gen instanceof ValueNoiseGenerator v) return Math.round(v.getScale() * 100);
+        if (gen instanceof GradientNoiseGenerator g) return Math.round(g.getScale() * 10);
+        if (gen instanceof OpenSimplex2NoiseGenerator s) return Math.round(s.getScale() * 10);
+        if (gen instanceof SaltAndPepperNoiseGenerator s) return Math.round(s.getProbability() * 200);
+        return 10;
+    }
+
+    private void generatorsChanged() {
+        PipelineSnapshot snapshot = PipelineSnapshot.of(generators);
+        pipeline.set(snapshot);
+        previewRenderer.requestRender(snapshot);
+    }
 }
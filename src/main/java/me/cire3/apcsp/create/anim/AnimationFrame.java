@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2025 cire3. All Rights Reserved.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package me.cire3.apcsp.create.anim;
+
+import java.awt.image.BufferedImage;
+
+// one fully composited frame of an animation, in display order
+public class AnimationFrame {
+    private final int index;
+    private final String name;
+    private final BufferedImage image;
+    private final int delayMillis;
+
+    public AnimationFrame(int index, String name, BufferedImage image, int delayMillis) {
+        this.index = index;
+        this.name = name;
+        this.image = image;
+        this.delayMillis = delayMillis;
+    }
+
+    // the same timing and name with other pixels, for the rendered output of this frame
+    public AnimationFrame withImage(BufferedImage image) {
+        return new AnimationFrame(index, name, image, delayMillis);
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    // the source file name for frame sequences, used to name the output frame
+    public String getName() {
+        return name;
+    }
+
+    public BufferedImage getImage() {
+        return image;
+    }
+
+    // how long the frame is shown, 0 for sequences that carry no timing
+    public int getDelayMillis() {
+        return delayMillis;
+    }
+}
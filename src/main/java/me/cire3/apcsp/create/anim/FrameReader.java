@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2025 cire3. All Rights Reserved.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package me.cire3.apcsp.create.anim;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Locale;
+
+// decodes an animation one frame at a time, so only the frame being composited is held by the reader
+public interface FrameReader extends AutoCloseable {
+    // null after the last frame
+    AnimationFrame next() throws IOException;
+
+    // number of frames, which may mean scanning the whole file once
+    int size() throws IOException;
+
+    @Override
+    void close() throws IOException;
+
+    static FrameReader open(File input) throws IOException {
+        return input.isDirectory() ? new SequenceFrameReader(input) : new GifFrameReader(input);
+    }
+
+    // a directory of numbered frames, or a GIF with more than one frame; anything else is a still image
+    static boolean isAnimation(File input) {
+        if (input.isDirectory()) {
+            return true;
+        }
+        if (!input.getName().toLowerCase(Locale.ROOT).endsWith(".gif")) {
+            return false;
+        }
+        try (ImageInputStream in = ImageIO.createImageInputStream(input)) {
+            Iterator<ImageReader> readers = in == null ? null : ImageIO.getImageReaders(in);
+            if (readers == null || !readers.hasNext()) {
+                return false;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, false);
+                return reader.getNumImages(true) > 1;
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
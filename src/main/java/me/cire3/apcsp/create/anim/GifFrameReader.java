@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2025 cire3. All Rights Reserved.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package me.cire3.apcsp.create.anim;
+
+import org.w3c.dom.Node;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+
+// GIF frames are patches drawn over the previous frame, so each one is composited onto a full-size canvas following
+// its disposal method before it is handed out
+public class GifFrameReader implements FrameReader {
+    private static final String IMAGE_FORMAT = "javax_imageio_gif_image_1.0";
+    private static final String STREAM_FORMAT = "javax_imageio_gif_stream_1.0";
+    // browsers show 0 and 1 centisecond delays at 100 ms, so the source was authored against that
+    private static final int MIN_DELAY_MILLIS = 20;
+    private static final int DEFAULT_DELAY_MILLIS = 100;
+
+    private final File file;
+    private final ImageInputStream in;
+    private final ImageReader reader;
+    private BufferedImage canvas;
+    private int index;
+
+    // the area and method the previous frame asked to be disposed with, and the canvas to restore
+    private String disposal = "none";
+    private int disposeX;
+    private int disposeY;
+    private int disposeWidth;
+    private int disposeHeight;
+    private BufferedImage restore;
+
+    public GifFrameReader(File file) throws IOException {
+        this.file = file;
+        this.in = ImageIO.createImageInputStream(file);
+        if (in == null) {
+            throw new IOException("Cannot open " + file.getAbsolutePath());
+        }
+        Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+        if (!readers.hasNext()) {
+            in.close();
+            throw new IOException("Unsupported image format: " + file.getAbsolutePath());
+        }
+        this.reader = readers.next();
+        reader.setInput(in, false, false);
+    }
+
+    @Override
+    public int size() throws IOException {
+        return reader.getNumImages(true);
+    }
+
+    @Override
+    public AnimationFrame next() throws IOException {
+        BufferedImage patch;
+        try {
+            patch = reader.read(index);
+        } catch (IndexOutOfBoundsException e) {
+            return null;
+        }
+        IIOMetadataNode metadata = (IIOMetadataNode) reader.getImageMetadata(index).getAsTree(IMAGE_FORMAT);
+        Node descriptor = child(metadata, "ImageDescriptor");
+        Node control = child(metadata, "GraphicControlExtension");
+        int x = intAttribute(descriptor, "imageLeftPosition", 0);
+        int y = intAttribute(descriptor, "imageTopPosition", 0);
+
+        if (canvas == null) {
+            canvas = createCanvas(patch, x, y);
+        }
+
+        Graphics2D g = canvas.createGraphics();
+        if (disposal.equals("restoreToBackgroundColor")) {
+            g.setComposite(AlphaComposite.Clear);
+            g.fillRect(disposeX, disposeY, disposeWidth, disposeHeight);
+            g.setComposite(AlphaComposite.SrcOver);
+        } else if (disposal.equals("restoreToPrevious") && restore != null) {
+            g.setComposite(AlphaComposite.Src);
+            g.drawImage(restore, 0, 0, null);
+            g.setComposite(AlphaComposite.SrcOver);
+        }
+
+        disposal = control == null ? "none" : attribute(control, "disposalMethod", "none");
+        disposeX = x;
+        disposeY = y;
+        disposeWidth = patch.getWidth();
+        disposeHeight = patch.getHeight();
+        restore = disposal.equals("restoreToPrevious") ? copy(canvas) : null;
+
+        g.drawImage(patch, x, y, null);
+        g.dispose();
+
+        int delay = control == null ? 0 : intAttribute(control, "delayTime", 0) * 10;
+        return new AnimationFrame(index++, file.getName(), copy(canvas), delay < MIN_DELAY_MILLIS ? DEFAULT_DELAY_MILLIS : delay);
+    }
+
+    // the logical screen can be larger than the first frame; fall back to the first frame when it is missing
+    private BufferedImage createCanvas(BufferedImage first, int x, int y) throws IOException {
+        int width = first.getWidth() + x;
+        int height = first.getHeight() + y;
+        if (reader.getStreamMetadata() != null) {
+            Node screen = child(reader.getStreamMetadata().getAsTree(STREAM_FORMAT), "LogicalScreenDescriptor");
+            width = Math.max(width, intAttribute(screen, "logicalScreenWidth", 0));
+            height = Math.max(height, intAttribute(screen, "logicalScreenHeight", 0));
+        }
+        return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+    }
+
+    private static BufferedImage copy(BufferedImage image) {
+        BufferedImage copy = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_ARGB);
+        image.copyData(copy.getRaster());
+        return copy;
+    }
+
+    private static Node child(Node parent, String name) {
+        for (Node node = parent.getFirstChild(); node != null; node = node.getNextSibling()) {
+            if (node.getNodeName().equals(name)) {
+                return node;
+            }
+        }
+        return null;
+    }
+
+    private static String attribute(Node node, String name, String fallback) {
+        Node attribute = node == null ? null : node.getAttributes().getNamedItem(name);
+        return attribute == null ? fallback : attribute.getNodeValue();
+    }
+
+    private static int intAttribute(Node node, String name, int fallback) {
+        try {
+            return Integer.parseInt(attribute(node, name, String.valueOf(fallback)));
+        } catch (NumberFormatException e) {
+            return fallback;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.dispose();
+        in.close();
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2025 cire3. All Rights Reserved.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package me.cire3.apcsp.create.anim;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+// a directory of numbered frames such as frame1.png ... frame120.png, ordered by the number in each name so
+// unpadded numbering still plays in order
+public class SequenceFrameReader implements FrameReader {
+    private final List<File> files;
+    private int index;
+
+    public SequenceFrameReader(File directory) throws IOException {
+        File[] listed = directory.listFiles(SequenceFrameReader::isImage);
+        if (listed == null) {
+            throw new IOException("Cannot list " + directory.getAbsolutePath());
+        }
+        if (listed.length == 0) {
+            throw new IOException("No frames in " + directory.getAbsolutePath());
+        }
+        this.files = new ArrayList<>(List.of(listed));
+        files.sort(Comparator.comparingLong(SequenceFrameReader::frameNumber).thenComparing(File::getName));
+    }
+
+    @Override
+    public int size() {
+        return files.size();
+    }
+
+    @Override
+    public AnimationFrame next() throws IOException {
+        if (index == files.size()) {
+            return null;
+        }
+        File file = files.get(index);
+        BufferedImage image = ImageIO.read(file);
+        if (image == null) {
+            throw new IOException("Unsupported image format: " + file.getAbsolutePath());
+        }
+        return new AnimationFrame(index++, file.getName(), image, 0);
+    }
+
+    // the last run of digits in the name, names without one sort first
+    private static long frameNumber(File file) {
+        String name = file.getName();
+        int end = name.length();
+        while (end > 0 && !Character.isDigit(name.charAt(end - 1))) {
+            end--;
+        }
+        int start = end;
+        while (start > 0 && Character.isDigit(name.charAt(start - 1))) {
+            start--;
+        }
+        if (start == end) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(name.substring(start, Math.min(end, start + 18)));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static boolean isImage(File file) {
+        String name = file.getName().toLowerCase(Locale.ROOT);
+        return file.isFile() && (name.endsWith(".jpg") || name.endsWith(".jpeg") || name.endsWith(".png")
+                || name.endsWith(".gif") || name.endsWith(".bmp"));
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2025 cire3. All Rights Reserved.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package me.cire3.apcsp.create.anim;
+
+import me.cire3.apcsp.create.png.PngEncoder;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+// writes each frame as a PNG into a directory, named after its source frame
+public class SequenceFrameWriter implements FrameWriter {
+    private final File directory;
+    private final PngEncoder encoder;
+
+    public SequenceFrameWriter(File directory, int compressionLevel, int parallelism) throws IOException {
+        Files.createDirectories(directory.toPath());
+        this.directory = directory;
+        this.encoder = new PngEncoder(compressionLevel, parallelism);
+    }
+
+    @Override
+    public void write(AnimationFrame frame) throws IOException {
+        BufferedImage image = frame.getImage();
+        int width = image.getWidth();
+        File file = new File(directory, name(frame));
+        // rendered frames are unshared TYPE_INT_ARGB images, so rows come straight out of the backing array
+        if (image.getType() == BufferedImage.TYPE_INT_ARGB) {
+            int[] data = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+            encoder.encode(width, image.getHeight(), (y, argb) -> System.arraycopy(data, y * width, argb, 0, width), file);
+        } else {
+            encoder.encode(width, image.getHeight(), (y, argb) -> image.getRGB(0, y, width, 1, argb, 0, width), file);
+        }
+    }
+
+    private static String name(AnimationFrame frame) {
+        String name = frame.getName();
+        int dot = name.lastIndexOf('.');
+        return (dot > 0 ? name.substring(0, dot) : name) + ".png";
+    }
+
+    @Override
+    public void close() {
+        encoder.close();
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2025 cire3. All Rights Reserved.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package me.cire3.apcsp.create.buffer;
+
+import jdk.incubator.foreign.MemorySegment;
+import jdk.incubator.foreign.ResourceScope;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// a width x height plane of packed ARGB pixels outside the Java heap. The memory belongs to a shared scope, so
+// every tile worker can write rows while close() releases it at once instead of waiting for the garbage collector
+public final class OffHeapPlane implements AutoCloseable {
+    private final int width;
+    private final int height;
+    private final ResourceScope scope;
+    private final MemorySegment pixels;
+    private final Path scratch;
+
+    private OffHeapPlane(int width, int height, ResourceScope scope, MemorySegment pixels, Path scratch) {
+        this.width = width;
+        this.height = height;
+        this.scope = scope;
+        this.pixels = pixels;
+        this.scratch = scratch;
+    }
+
+    // callers check storage.isAvailable() first, this class cannot be linked without jdk.incubator.foreign
+    public static OffHeapPlane allocate(int width, int height, PlaneStorage storage) throws IOException {
+        long bytes = (long) width * height * Integer.BYTES;
+        ResourceScope scope = ResourceScope.newSharedScope();
+        try {
+            switch (storage) {
+                case NATIVE -> {
+                    return new OffHeapPlane(width, height, scope,
+                            MemorySegment.allocateNative(bytes, Integer.BYTES, scope), null);
+                }
+                case MAPPED -> {
+                    Path scratch = Files.createTempFile("apcsp-plane", ".raw");
+                    try {
+                        return new OffHeapPlane(width, height, scope,
+                                MemorySegment.mapFile(scratch, 0, bytes, FileChannel.MapMode.READ_WRITE, scope), scratch);
+                    } catch (IOException | RuntimeException e) {
+                        Files.deleteIfExists(scratch);
+                        throw e;
+                    }
+                }
+                default -> throw new IllegalArgumentException("Not an off-heap storage: " + storage);
+            }
+        } catch (IOException | RuntimeException e) {
+            scope.close();
+            throw e;
+        }
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public void write(int x, int y, int length, int[] argb) {
+        long bytes = (long) length * Integer.BYTES;
+        pixels.asSlice(offset(x, y), bytes).copyFrom(MemorySegment.ofArray(argb).asSlice(0, bytes));
+    }
+
+    public void read(int x, int y, int length, int[] argb) {
+        long bytes = (long) length * Integer.BYTES;
+        MemorySegment.ofArray(argb).asSlice(0, bytes).copyFrom(pixels.asSlice(offset(x, y), bytes));
+    }
+
+    private long offset(int x, int y) {
+        return ((long) y * width + x) * Integer.BYTES;
+    }
+
+    // releases the memory, or unmaps and deletes the scratch file
+    @Override
+    public void close() throws IOException {
+        scope.close();
+        if (scratch != null) {
+            Files.deleteIfExists(scratch);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+/*
+ * Copyright (c) 2025 cire3. All Rights Reserved.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package me.cire3.apcsp.create.buffer;
+
+// where a job keeps its full-frame pixel planes
+public enum PlaneStorage {
+    // an ordinary BufferedImage on the Java heap
+    HEAP,
+    // native memory outside the heap, freed as soon as the job closes it
+    NATIVE,
+    // a memory-mapped scratch file, for frames larger than the heap or physical memory should hold
+    MAPPED;
+
+    // off-heap planes need jdk.incubator.foreign in the boot layer, like the SIMD kernels need jdk.incubator.vector
+    public boolean isAvailable() {
+        return this == HEAP || ModuleLayer.boot().findModule("jdk.incubator.foreign").isPresent();
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2025 cire3. All Rights Reserved.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package me.cire3.apcsp.create.cache;
+
+import me.cire3.apcsp.create.noise.NoiseGenerator;
+import me.cire3.apcsp.create.noise.WeightedGenerator;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+// keeps unweighted noise fields of deterministic generators, keyed by the generator's field key and the region,
+// so the same tiles of same-size images are only computed once; generators without a field key bypass it
+public class NoiseFieldCache {
+    // rough per-entry cost of the key, map node and array header on top of the samples
+    private static final long ENTRY_OVERHEAD = 96;
+
+    private final long budgetBytes;
+    private final LinkedHashMap<RegionKey, float[]> fields = new LinkedHashMap<>(64, 0.75f, true);
+    private long usedBytes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder bypasses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public NoiseFieldCache(long budgetBytes) {
+        this.budgetBytes = budgetBytes;
+    }
+
+    // same contract as NoiseGenerator.fillRegion
+    public void fillRegion(NoiseGenerator generator, float[] dst, int offset, int stride,
+                           int x0, int y0, int width, int height, float weight) {
+        while (generator instanceof WeightedGenerator weighted) {
+            weight *= weighted.getWeight();
+            generator = weighted.getGenerator();
+        }
+
+        Object fieldKey = generator.fieldKey();
+        if (fieldKey == null || weight == 0) {
+            bypasses.increment();
+            generator.fillRegion(dst, offset, stride, x0, y0, width, height, weight);
+            return;
+        }
+
+        RegionKey key = new RegionKey(fieldKey, x0, y0, width, height);
+        float[] field = get(key);
+        if (field == null) {
+            misses.increment();
+            field = new float[width * height];
+            generator.fillRegion(field, 0, width, x0, y0, width, height, 1f);
+            put(key, field);
+        } else {
+            hits.increment();
+        }
+
+        for (int j = 0; j < height; j++) {
+            int row = offset + j * stride;
+            int source = j * width;
+            for (int i = 0; i < width; i++) {
+                dst[row + i] += weight * field[source + i];
+            }
+        }
+    }
+
+    private synchronized float[] get(RegionKey key) {
+        return fields.get(key);
+    }
+
+    private synchronized void put(RegionKey key, float[] field) {
+        long bytes = cost(field);
+        if (bytes > budgetBytes) {
+            return;
+        }
+        float[] previous = fields.put(key, field);
+        if (previous != null) {
+            usedBytes -= cost(previous);
+        }
+        usedBytes += bytes;
+
+        Iterator<Map.Entry<RegionKey, float[]>> eldest = fields.entrySet().iterator();
+        while (usedBytes > budgetBytes && eldest.hasNext()) {
+            usedBytes -= cost(eldest.next().getValue());
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    private static long cost(float[] field) {
+        return (long) field.length * Float.BYTES + ENTRY_OVERHEAD;
+    }
+
+    public synchronized void clear() {
+        fields.clear();
+        usedBytes = 0;
+    }
+
+    public long getBudgetBytes() {
+        return budgetBytes;
+    }
+
+    public synchronized long getUsedBytes() {
+        return usedBytes;
+    }
+
+    public synchronized int getEntries() {
+        return fields.size();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getBypasses() {
+        return bypasses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    @Override
+    public String toString() {
+        long hits = getHits();
+        long lookups = hits + getMisses();
+        return String.format("%d hits, %d misses (%.0f%% hit rate), %d bypassed, %d evicted, %d entries, %.1f/%.1f MB",
+                hits, getMisses(), lookups == 0 ? 0 : 100.0 * hits / lookups, getBypasses(), getEvictions(),
+                getEntries(), getUsedBytes() / 1e6, budgetBytes / 1e6);
+    }
+
+    private record RegionKey(Object field, int x0, int y0, int width, int height) {
+    }
+}
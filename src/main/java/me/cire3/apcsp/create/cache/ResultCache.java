@@ -0,0 +1,238 @@
+/*
+ * Copyright (c) 2025 cire3. All Rights Reserved.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package me.cire3.apcsp.create.cache;
+
+import me.cire3.apcsp.create.metrics.MetricsRegistry;
+import me.cire3.apcsp.create.noise.NoiseGenerator;
+import me.cire3.apcsp.create.pipeline.PipelineSpec;
+
+import java.awt.Dimension;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+// finished PNGs on disk, named by the SHA-256 of the input bytes, the pipeline spec and the compression level, so a
+// rerun of a deterministic pipeline over an unchanged input copies the earlier output instead of rendering. Entries
+// are evicted least recently used first once the directory grows past its budget; the order survives restarts
+// through the entries' modification times. One process should own a directory at a time
+public class ResultCache {
+    // bump when the renderer or encoder changes what the same input and spec produce
+    private static final String VERSION = "apcsp-result-1";
+    private static final String SUFFIX = ".png";
+
+    private final Path directory;
+    private final long budgetBytes;
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long usedBytes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public ResultCache(Path directory, long budgetBytes) throws IOException {
+        this.directory = directory;
+        this.budgetBytes = budgetBytes;
+        Files.createDirectories(directory);
+
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> list = Files.list(directory)) {
+            list.filter(file -> file.getFileName().toString().endsWith(SUFFIX)).forEach(files::add);
+        }
+        // oldest first, matching the access order the map keeps from here on
+        files.sort((a, b) -> lastModified(a).compareTo(lastModified(b)));
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            long bytes = Files.size(file);
+            entries.put(name.substring(0, name.length() - SUFFIX.length()), bytes);
+            usedBytes += bytes;
+        }
+        evict();
+    }
+
+    // null when the pipeline draws from a secure source, its output is never reused
+    public String key(Path input, List<? extends NoiseGenerator> generators, int compressionLevel) throws IOException {
+        PipelineSpec spec = PipelineSpec.of(generators);
+        if (!spec.isDeterministic()) {
+            return null;
+        }
+
+        MessageDigest digest = sha256();
+        digest.update((VERSION + "\n" + spec + "level=" + compressionLevel + "\n").getBytes(StandardCharsets.UTF_8));
+        try (InputStream in = Files.newInputStream(input)) {
+            byte[] buffer = new byte[64 << 10];
+            for (int read; (read = in.read(buffer)) > 0; ) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    // copies the cached output to the given file and returns its size, or returns null on a miss
+    public Dimension restore(String key, Path output) throws IOException {
+        Path entry = entry(key);
+        synchronized (this) {
+            if (entries.get(key) == null) {
+                miss();
+                return null;
+            }
+        }
+        try {
+            Dimension size = readSize(entry);
+            Files.copy(entry, output, StandardCopyOption.REPLACE_EXISTING);
+            Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+            hits.increment();
+            MetricsRegistry.GLOBAL.counter("resultcache.hits").increment();
+            return size;
+        } catch (NoSuchFileException e) {
+            // evicted or deleted by hand since the lookup
+            remove(key);
+            miss();
+            return null;
+        }
+    }
+
+    private void miss() {
+        misses.increment();
+        MetricsRegistry.GLOBAL.counter("resultcache.misses").increment();
+    }
+
+    // copies a freshly written output into the cache
+    public void store(String key, Path output) throws IOException {
+        long bytes = Files.size(output);
+        if (bytes > budgetBytes) {
+            return;
+        }
+        Path temp = Files.createTempFile(directory, key, ".tmp");
+        try {
+            Files.copy(output, temp, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(temp, entry(key), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+
+        synchronized (this) {
+            Long previous = entries.put(key, bytes);
+            if (previous != null) {
+                usedBytes -= previous;
+            }
+            usedBytes += bytes;
+            evict();
+        }
+    }
+
+    // callers hold the lock, or are the constructor
+    private void evict() {
+        Iterator<Map.Entry<String, Long>> eldest = entries.entrySet().iterator();
+        while (usedBytes > budgetBytes && eldest.hasNext()) {
+            Map.Entry<String, Long> entry = eldest.next();
+            try {
+                Files.deleteIfExists(entry(entry.getKey()));
+            } catch (IOException e) {
+                System.out.println("Error evicting cached result " + entry.getKey() + ": " + e);
+            }
+            usedBytes -= entry.getValue();
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    private synchronized void remove(String key) {
+        Long bytes = entries.remove(key);
+        if (bytes != null) {
+            usedBytes -= bytes;
+        }
+    }
+
+    private Path entry(String key) {
+        return directory.resolve(key + SUFFIX);
+    }
+
+    // the IHDR chunk always comes first, width and height are its first two fields
+    private static Dimension readSize(Path png) throws IOException {
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(png))) {
+            in.skipNBytes(16);
+            return new Dimension(in.readInt(), in.readInt());
+        }
+    }
+
+    private static FileTime lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is required of every JVM", e);
+        }
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public long getBudgetBytes() {
+        return budgetBytes;
+    }
+
+    public synchronized long getUsedBytes() {
+        return usedBytes;
+    }
+
+    public synchronized int getEntries() {
+        return entries.size();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    @Override
+    public String toString() {
+        long hits = getHits();
+        long lookups = hits + getMisses();
+        return String.format("%d hits, %d misses (%.0f%% hit rate), %d evicted, %d entries, %.1f/%.1f MB",
+                hits, getMisses(), lookups == 0 ? 0 : 100.0 * hits / lookups, getEvictions(), getEntries(),
+                getUsedBytes() / 1e6, budgetBytes / 1e6);
+    }
+}
@@ -0,0 +1,420 @@
+/*
+ * Copyright (c) 2025 cire3. All Rights Reserved.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package me.cire3.apcsp.create.cli;
+
+import me.cire3.apcsp.create.AnimationProcessor;
+import me.cire3.apcsp.create.Processor;
+import me.cire3.apcsp.create.RenderStats;
+import me.cire3.apcsp.create.StreamingProcessor;
+import me.cire3.apcsp.create.TileRenderer;
+import me.cire3.apcsp.create.anim.FrameReader;
+import me.cire3.apcsp.create.buffer.PlaneStorage;
+import me.cire3.apcsp.create.cache.NoiseFieldCache;
+import me.cire3.apcsp.create.cache.ResultCache;
+import me.cire3.apcsp.create.metrics.MetricsRegistry;
+import me.cire3.apcsp.create.noise.RandomizedGenerator;
+import me.cire3.apcsp.create.noise.WeightedGenerator;
+import me.cire3.apcsp.create.pipeline.PipelineCompiler;
+import me.cire3.apcsp.create.pipeline.PipelineParser;
+import me.cire3.apcsp.create.png.PngEncoder;
+import me.cire3.apcsp.create.server.RenderServer;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.TreeSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+public class BatchMain {
+    private static final String USAGE = """
+            Usage: --input <file|dir|glob> [--input ...] --pipeline <spec> | --config <file> [options]
+              --output <dir>          output directory (default: current directory)
+              --name <template>       output file name, {name} {ext} {index} are replaced (default: {name}_noised.png)
+              --threads <n>           images processed at once (default: available processors)
+              --tile-threads <n>      tile workers per image, or frames rendered at once per animation (default: 1)
+              --seed <n>              reseed every randomized generator from one pipeline seed
+              --stream                decode, render and encode in bands so memory does not grow with image height
+              --band-height <n>       rows per band when streaming (default: 256)
+              --cache-mb <n>          memory for cached deterministic noise fields shared across images, 0 disables (default: 256)
+              --result-cache <dir>    reuse outputs of earlier runs with the same input bytes, pipeline and compression;
+                                      only pipelines with fixed seeds (--seed or seed=) produce the same key (default: off)
+              --result-cache-mb <n>   disk space for the result cache, least recently used outputs go first (default: 1024)
+              --buffers <storage>     heap, native (off-heap memory) or mapped (a memory-mapped scratch file) for the
+                                      rendered frame, off-heap needs --add-modules jdk.incubator.foreign (default: heap)
+              --compression <level>   PNG deflate level 0-9, or none (stored), fast (1), default (4) or best (9);
+                                      lower levels suit intermediate outputs (default: default)
+              --frames                treat --input directories as numbered frame sequences, each rendered into an
+                                      output directory of PNGs; animated GIFs are always rendered frame by frame
+              --frame-time <t>        time slices perlin and value noise advance per frame (default: 0.1)
+              --merge <level>         exact, distribution (merge independent Gaussians) or approximate (also fold
+                                      white noise into them) (default: exact)
+              --metrics               print per-stage and per-generator timings when done
+              --serve <port>          instead of a batch, serve POST /render and GET /metrics on 127.0.0.1, 0 picks a
+                                      free port; --threads renders run at once (default: off)
+              --queue <n>             renders waiting behind them before requests get 503 (default: 16)
+            Pipeline entries look like gaussian:mu=0,sigma=0.5@0.8;perlin:scale=1,time=0;value:scale=0.2,seed=7;white;saltpepper:probability=0.1
+            and fractal:octaves=5,lacunarity=2,gain=0.5,frequency=0.015625,mode=fbm|turbulence|ridged;
+            gradient:frequency=0.03125,scale=1;simplex:frequency=0.03125,scale=1,seed=0
+            """;
+
+    private final List<String> inputs = new ArrayList<>();
+    private Path outputDir = Path.of(".");
+    private String nameTemplate = "{name}_noised.png";
+    private String pipeline;
+    private Path config;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int tileThreads = 1;
+    private Long seed;
+    private boolean stream;
+    private boolean frames;
+    private float frameTime = AnimationProcessor.DEFAULT_FRAME_TIME;
+    private int bandHeight = StreamingProcessor.DEFAULT_BAND_HEIGHT;
+    private long cacheBytes = 256L << 20;
+    private Path resultCache;
+    private long resultCacheBytes = 1024L << 20;
+    private boolean metrics;
+    private PlaneStorage buffers = PlaneStorage.HEAP;
+    private int compression = PngEncoder.DEFAULT_LEVEL;
+    private PipelineCompiler.Level merge = PipelineCompiler.Level.EXACT;
+    private Integer servePort;
+    private int queue = RenderServer.DEFAULT_QUEUE_CAPACITY;
+
+    public static void main(String[] args) {
+        BatchMain batch = new BatchMain();
+        try {
+            batch.parseArgs(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.print(USAGE);
+            System.exit(2);
+            return;
+        }
+
+        try {
+            System.exit(batch.run() == 0 ? 0 : 1);
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+        }
+    }
+
+    private void parseArgs(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            switch (arg) {
+                case "--input", "-i" -> inputs.add(value(args, ++i, arg));
+                case "--output", "-o" -> outputDir = Path.of(value(args, ++i, arg));
+                case "--name" -> nameTemplate = value(args, ++i, arg);
+                case "--pipeline", "-p" -> pipeline = value(args, ++i, arg);
+                case "--config", "-c" -> config = Path.of(value(args, ++i, arg));
+                case "--threads" -> threads = positive(value(args, ++i, arg), arg);
+                case "--tile-threads" -> tileThreads = positive(value(args, ++i, arg), arg);
+                case "--seed" -> seed = parseLong(value(args, ++i, arg), arg);
+                case "--stream" -> stream = true;
+                case "--frames" -> frames = true;
+                case "--frame-time" -> frameTime = parseFloat(value(args, ++i, arg), arg);
+                case "--band-height" -> bandHeight = positive(value(args, ++i, arg), arg);
+                case "--cache-mb" -> cacheBytes = parseLong(value(args, ++i, arg), arg) << 20;
+                case "--result-cache" -> resultCache = Path.of(value(args, ++i, arg));
+                case "--result-cache-mb" -> resultCacheBytes = parseLong(value(args, ++i, arg), arg) << 20;
+                case "--metrics" -> metrics = true;
+                case "--merge" -> merge = level(value(args, ++i, arg));
+                case "--buffers" -> buffers = storage(value(args, ++i, arg));
+                case "--compression" -> compression = compression(value(args, ++i, arg));
+                case "--serve" -> servePort = port(value(args, ++i, arg));
+                case "--queue" -> queue = positive(value(args, ++i, arg), arg);
+                case "--help", "-h" -> throw new IllegalArgumentException("AP CSP Create Task batch mode");
+                default -> throw new IllegalArgumentException("Unknown argument: " + arg);
+            }
+        }
+        if (servePort != null) {
+            return;
+        }
+        if (inputs.isEmpty()) {
+            throw new IllegalArgumentException("No --input given");
+        }
+        if ((pipeline == null) == (config == null)) {
+            throw new IllegalArgumentException("Exactly one of --pipeline or --config is required");
+        }
+    }
+
+    // returns the number of images that failed
+    private int run() throws IOException {
+        if (servePort != null) {
+            return serve();
+        }
+
+        List<WeightedGenerator> parsed = pipeline != null ? PipelineParser.parse(pipeline) : PipelineParser.parse(config);
+        if (seed != null) {
+            RandomizedGenerator.seedAll(parsed, seed);
+        }
+        List<WeightedGenerator> generators = PipelineCompiler.optimize(parsed, merge);
+
+        List<Path> files = resolveInputs();
+        if (files.isEmpty()) {
+            throw new IOException("No input images matched " + inputs);
+        }
+        Files.createDirectories(outputDir);
+
+        System.out.printf("Processing %d images with %d generators on %d threads%n",
+                files.size(), generators.size(), threads);
+
+        NoiseFieldCache cache = cacheBytes > 0 ? new NoiseFieldCache(cacheBytes) : null;
+        ResultCache outputs = resultCache != null ? new ResultCache(resultCache, resultCacheBytes) : null;
+        TileRenderer.setLayerTiming(metrics);
+
+        long start = System.nanoTime();
+        List<Future<RenderStats>> results = new ArrayList<>();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(threads, files.size()));
+        try {
+            for (int i = 0; i < files.size(); i++) {
+                File input = files.get(i).toFile();
+                if (FrameReader.isAnimation(input)) {
+                    // result caching keys single files, animations always render
+                    File output = outputDir.resolve(animationName(files.get(i), i)).toFile();
+                    results.add(pool.submit(() -> new AnimationProcessor(input, output, generators, tileThreads, cache,
+                            compression, frameTime).process()));
+                    continue;
+                }
+                File output = outputDir.resolve(outputName(files.get(i), i)).toFile();
+                results.add(pool.submit(() -> stream
+                        ? new StreamingProcessor(input, output, generators, tileThreads, bandHeight, cache, compression,
+                        outputs).process()
+                        : new Processor(input, output, generators, tileThreads, cache, buffers, compression, outputs)
+                        .process()));
+            }
+
+            int failed = 0;
+            long pixels = 0;
+            for (int i = 0; i < files.size(); i++) {
+                try {
+                    RenderStats stats = results.get(i).get();
+                    pixels += (long) stats.getWidth() * stats.getHeight();
+                } catch (ExecutionException e) {
+                    failed++;
+                    System.err.println("Failed " + files.get(i) + ": " + e.getCause());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted", e);
+                }
+            }
+
+            double seconds = (System.nanoTime() - start) / 1e9;
+            int done = files.size() - failed;
+            System.out.printf("Done: %d images (%d failed) in %.2f s, %.2f images/s, %.2f MP/s%n",
+                    done, failed, seconds, done / seconds, pixels / 1e6 / seconds);
+            if (cache != null) {
+                System.out.println("Noise field cache: " + cache);
+            }
+            if (outputs != null) {
+                System.out.println("Result cache: " + outputs);
+            }
+            if (metrics) {
+                System.out.print(MetricsRegistry.GLOBAL.describe());
+            }
+            return failed;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    // serves until the process is stopped
+    private int serve() throws IOException {
+        NoiseFieldCache cache = cacheBytes > 0 ? new NoiseFieldCache(cacheBytes) : null;
+        RenderServer server = new RenderServer(servePort, threads, queue, cache);
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close, "Render Server Shutdown"));
+        server.start();
+        System.out.printf("Serving on http://127.0.0.1:%d/render with %d render threads and a queue of %d%n",
+                server.getPort(), threads, queue);
+        try {
+            new CountDownLatch(1).await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        server.close();
+        return 0;
+    }
+
+    private List<Path> resolveInputs() throws IOException {
+        TreeSet<Path> files = new TreeSet<>();
+        for (String input : inputs) {
+            Path path = Path.of(input);
+            if (frames && Files.isDirectory(path)) {
+                files.add(path);
+            } else if (Files.isDirectory(path)) {
+                try (Stream<Path> list = Files.list(path)) {
+                    list.filter(BatchMain::isImage).forEach(files::add);
+                }
+            } else if (isGlob(input)) {
+                Path base = globBase(input);
+                PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + input);
+                try (Stream<Path> walk = Files.walk(base)) {
+                    walk.filter(Files::isRegularFile).filter(matcher::matches).forEach(files::add);
+                }
+            } else if (Files.isRegularFile(path)) {
+                files.add(path);
+            } else {
+                throw new IOException("Input not found: " + input);
+            }
+        }
+        return new ArrayList<>(files);
+    }
+
+    private String outputName(Path input, int index) {
+        String file = input.getFileName().toString();
+        int dot = file.lastIndexOf('.');
+        String name = dot > 0 ? file.substring(0, dot) : file;
+        String ext = dot > 0 ? file.substring(dot + 1) : "";
+        return nameTemplate.replace("{name}", name)
+                .replace("{ext}", ext)
+                .replace("{index}", String.valueOf(index));
+    }
+
+    // a GIF keeps the name with a .gif extension, a frame directory drops the extension and becomes a directory
+    private String animationName(Path input, int index) {
+        String name = Files.isDirectory(input)
+                ? nameTemplate.replace("{name}", input.getFileName().toString()).replace("{ext}", "")
+                        .replace("{index}", String.valueOf(index))
+                : outputName(input, index);
+        int dot = name.lastIndexOf('.');
+        String base = dot > 0 ? name.substring(0, dot) : name;
+        return Files.isDirectory(input) ? base : base + ".gif";
+    }
+
+    private static boolean isImage(Path path) {
+        String name = path.getFileName().toString().toLowerCase(Locale.ROOT);
+        return Files.isRegularFile(path) && (name.endsWith(".jpg") || name.endsWith(".jpeg")
+                || name.endsWith(".png") || name.endsWith(".gif") || name.endsWith(".bmp"));
+    }
+
+    private static boolean isGlob(String input) {
+        return input.chars().anyMatch(c -> c == '*' || c == '?' || c == '[' || c == '{');
+    }
+
+    // the deepest directory before the first glob character, so only that subtree is walked
+    private static Path globBase(String glob) {
+        int firstWildcard = 0;
+        while (firstWildcard < glob.length() && "*?[{".indexOf(glob.charAt(firstWildcard)) < 0) {
+            firstWildcard++;
+        }
+        int separator = Math.max(glob.lastIndexOf('/', firstWildcard), glob.lastIndexOf(File.separatorChar, firstWildcard));
+        return separator < 0 ? Path.of("") : Path.of(glob.substring(0, separator + 1));
+    }
+
+    private static String value(String[] args, int index, String flag) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException("Missing value for " + flag);
+        }
+        return args[index];
+    }
+
+    private static int positive(String value, String flag) {
+        try {
+            int parsed = Integer.parseInt(value);
+            if (parsed >= 1) {
+                return parsed;
+            }
+        } catch (NumberFormatException ignored) {
+        }
+        throw new IllegalArgumentException(flag + " must be a positive integer: " + value);
+    }
+
+    private static int port(String value) {
+        try {
+            int parsed = Integer.parseInt(value);
+            if (parsed >= 0 && parsed <= 65535) {
+                return parsed;
+            }
+        } catch (NumberFormatException ignored) {
+        }
+        throw new IllegalArgumentException("--serve must be a port between 0 and 65535: " + value);
+    }
+
+    private static PlaneStorage storage(String value) {
+        PlaneStorage storage;
+        try {
+            storage = PlaneStorage.valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("--buffers must be heap, native or mapped: " + value);
+        }
+        if (!storage.isAvailable()) {
+            throw new IllegalArgumentException("--buffers " + value + " needs --add-modules jdk.incubator.foreign");
+        }
+        return storage;
+    }
+
+    private static int compression(String value) {
+        switch (value.toLowerCase(Locale.ROOT)) {
+            case "none" -> {
+                return PngEncoder.UNCOMPRESSED;
+            }
+            case "fast" -> {
+                return PngEncoder.FAST;
+            }
+            case "default" -> {
+                return PngEncoder.DEFAULT_LEVEL;
+            }
+            case "best" -> {
+                return PngEncoder.BEST;
+            }
+            default -> {
+                try {
+                    int level = Integer.parseInt(value);
+                    if (level >= PngEncoder.UNCOMPRESSED && level <= PngEncoder.BEST) {
+                        return level;
+                    }
+                } catch (NumberFormatException ignored) {
+                }
+                throw new IllegalArgumentException("--compression must be 0-9, none, fast, default or best: " + value);
+            }
+        }
+    }
+
+    private static PipelineCompiler.Level level(String value) {
+        try {
+            return PipelineCompiler.Level.valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("--merge must be exact, distribution or approximate: " + value);
+        }
+    }
+
+    private static float parseFloat(String value, String flag) {
+        try {
+            return Float.parseFloat(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(flag + " must be a number: " + value);
+        }
+    }
+
+    private static long parseLong(String value, String flag) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(flag + " must be an integer: " + value);
+        }
+    }
+}
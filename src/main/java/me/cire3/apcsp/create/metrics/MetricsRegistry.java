@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2025 cire3. All Rights Reserved.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package me.cire3.apcsp.create.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+// process-wide counters and histograms that the GUI, batch mode and anything else can read
+public final class MetricsRegistry {
+    public static final MetricsRegistry GLOBAL = new MetricsRegistry();
+
+    private final ConcurrentHashMap<String, Counter> counters = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Histogram> histograms = new ConcurrentHashMap<>();
+
+    public Counter counter(String name) {
+        return counters.computeIfAbsent(name, key -> new Counter());
+    }
+
+    public Histogram histogram(String name) {
+        return histograms.computeIfAbsent(name, key -> new Histogram());
+    }
+
+    public Map<String, Counter> getCounters() {
+        return new TreeMap<>(counters);
+    }
+
+    public Map<String, Histogram> getHistograms() {
+        return new TreeMap<>(histograms);
+    }
+
+    // histograms whose name ends in ".nanos" are printed in milliseconds
+    public String describe() {
+        StringBuilder out = new StringBuilder();
+        getCounters().forEach((name, counter) -> out.append(String.format("%-40s %d%n", name, counter.get())));
+        getHistograms().forEach((name, histogram) -> {
+            double unit = name.endsWith(".nanos") ? 1e6 : 1;
+            out.append(String.format("%-40s n=%d mean=%.2f p50=%.2f p95=%.2f p99=%.2f max=%.2f%n", name,
+                    histogram.getCount(), histogram.getMean() / unit, histogram.getPercentile(0.5) / unit,
+                    histogram.getPercentile(0.95) / unit, histogram.getPercentile(0.99) / unit,
+                    histogram.getMax() / unit));
+        });
+        return out.toString();
+    }
+}
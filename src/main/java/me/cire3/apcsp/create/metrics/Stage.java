@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2025 cire3. All Rights Reserved.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package me.cire3.apcsp.create.metrics;
+
+import java.lang.management.ManagementFactory;
+
+// times one processing stage into the registry and, when a recording has it enabled, a StageEvent
+public final class Stage {
+    private static final com.sun.management.ThreadMXBean THREADS = threads();
+
+    private final String name;
+    private final String file;
+    private final StageEvent event = new StageEvent();
+    private final long startNanos;
+    private final long startAllocated;
+
+    private Stage(String name, String file) {
+        this.name = name;
+        this.file = file;
+        this.startAllocated = allocatedBytes();
+        this.event.begin();
+        this.startNanos = System.nanoTime();
+    }
+
+    public static Stage begin(String name, String file) {
+        return new Stage(name, file);
+    }
+
+    public long end(long pixels) {
+        return end(pixels, 0);
+    }
+
+    // extraAllocated covers bytes allocated on other threads, such as tile workers
+    public long end(long pixels, long extraAllocated) {
+        long nanos = System.nanoTime() - startNanos;
+        long allocated = allocatedBytes() - startAllocated + extraAllocated;
+        record(name, nanos, pixels, allocated);
+
+        if (event.shouldCommit()) {
+            event.stage = name;
+            event.file = file;
+            event.pixels = pixels;
+            event.allocated = allocated;
+            event.commit();
+        }
+        return nanos;
+    }
+
+    public static void record(String stage, long nanos, long pixels, long allocated) {
+        MetricsRegistry registry = MetricsRegistry.GLOBAL;
+        registry.histogram("stage." + stage + ".nanos").record(nanos);
+        registry.counter("stage." + stage + ".pixels").add(pixels);
+        if (allocated > 0) {
+            registry.counter("stage." + stage + ".allocated.bytes").add(allocated);
+        }
+    }
+
+    // bytes allocated so far by the current thread, or 0 when the JVM cannot tell
+    public static long allocatedBytes() {
+        return THREADS == null ? 0 : THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static com.sun.management.ThreadMXBean threads() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+                && threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+            return threads;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2025 cire3. All Rights Reserved.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package me.cire3.apcsp.create.noise;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// generators with a time axis. Integer times are independent slices of the lattice and fractional times blend the two
+// neighbouring slices, so frames sampled at nearby times look alike; time 0 is the still image
+public interface AnimatedGenerator extends NoiseGenerator {
+    float getTime();
+
+    void setTime(float time);
+
+    // copies of the pipeline for one frame: animated generators move frameTime slices per frame, and other randomized
+    // generators draw a separate stream per frame so their grain is not frozen in place. Frame 0 matches the still
+    static List<WeightedGenerator> atFrame(List<? extends WeightedGenerator> generators, int frame, float frameTime) {
+        List<WeightedGenerator> copies = new ArrayList<>(generators.size());
+        for (WeightedGenerator generator : generators) {
+            WeightedGenerator copy = generator.copy();
+            NoiseGenerator inner = copy;
+            while (inner instanceof WeightedGenerator weighted) {
+                inner = weighted.getGenerator();
+            }
+            if (inner instanceof AnimatedGenerator animated) {
+                animated.setTime(animated.getTime() + frame * frameTime);
+            } else if (inner instanceof RandomizedGenerator randomized && frame > 0) {
+                randomized.setRandomSource(randomized.getRandomSource().split(frame));
+            }
+            copies.add(copy);
+        }
+        return copies;
+    }
+}
@@ -0,0 +1,280 @@
+/*
+ * Copyright (c) 2025 cire3. All Rights Reserved.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package me.cire3.apcsp.create.noise;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+// sums octaves of GradientLattice noise, each at lacunarity times the previous frequency and gain times the previous
+// amplitude. Amplitudes are normalized so the result stays within [-1, 1] for every mode
+public class FractalNoiseGenerator implements NoiseGenerator {
+    public enum Mode {
+        FBM, TURBULENCE, RIDGED
+    }
+
+    public static final int MAX_OCTAVES = 16;
+
+    // octaves whose remaining amplitudes add up to less than this are skipped; one 8-bit level is about 1/46 of
+    // noise, so the tail never moves a channel
+    private static final float QUANTUM = 1f / 512;
+
+    // octaves smaller than this stay on the calling thread, forking costs more than it saves
+    private static final int PARALLEL_SAMPLES = 2048;
+
+    private static final ThreadLocal<ArrayDeque<float[][]>> PARTIALS = ThreadLocal.withInitial(ArrayDeque::new);
+
+    private int octaves;
+    private float lacunarity;
+    private float gain;
+    private float frequency;
+    private Mode mode;
+
+    private float[] amplitudes;
+
+    public FractalNoiseGenerator(int octaves, float frequency) {
+        this(octaves, 2f, 0.5f, frequency, Mode.FBM);
+    }
+
+    public FractalNoiseGenerator(int octaves, float lacunarity, float gain, float frequency, Mode mode) {
+        if (octaves < 1 || octaves > MAX_OCTAVES) {
+            throw new IllegalArgumentException("octaves must be between 1 and " + MAX_OCTAVES + ": " + octaves);
+        }
+        this.octaves = octaves;
+        this.lacunarity = lacunarity;
+        this.gain = gain;
+        this.frequency = frequency;
+        this.mode = mode;
+        updateAmplitudes();
+    }
+
+    public int getOctaves() {
+        return octaves;
+    }
+
+    public void setOctaves(int octaves) {
+        if (octaves < 1 || octaves > MAX_OCTAVES) {
+            throw new IllegalArgumentException("octaves must be between 1 and " + MAX_OCTAVES + ": " + octaves);
+        }
+        this.octaves = octaves;
+        updateAmplitudes();
+    }
+
+    public float getLacunarity() {
+        return lacunarity;
+    }
+
+    public void setLacunarity(float lacunarity) {
+        this.lacunarity = lacunarity;
+    }
+
+    public float getGain() {
+        return gain;
+    }
+
+    public void setGain(float gain) {
+        this.gain = gain;
+        updateAmplitudes();
+    }
+
+    public float getFrequency() {
+        return frequency;
+    }
+
+    public void setFrequency(float frequency) {
+        this.frequency = frequency;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public void setMode(Mode mode) {
+        this.mode = mode;
+    }
+
+    // number of octaves actually evaluated once the cutoff is applied
+    public int getActiveOctaves() {
+        return amplitudes.length;
+    }
+
+    // normalized amplitudes of the octaves that survive the cutoff, published as a new array so a render in flight
+    // keeps a consistent set
+    private void updateAmplitudes() {
+        float[] all = new float[octaves];
+        float total = 0;
+        float amplitude = 1;
+        for (int k = 0; k < octaves; k++) {
+            all[k] = amplitude;
+            total += Math.abs(amplitude);
+            amplitude *= gain;
+        }
+
+        int active = octaves;
+        float tail = 0;
+        while (active > 1 && tail + Math.abs(all[active - 1]) / total < QUANTUM) {
+            tail += Math.abs(all[--active]) / total;
+        }
+
+        float[] amplitudes = new float[active];
+        for (int k = 0; k < active; k++) {
+            amplitudes[k] = all[k] / total;
+        }
+        this.amplitudes = amplitudes;
+    }
+
+    @Override
+    public Object fieldKey() {
+        return List.of(FractalNoiseGenerator.class, octaves, lacunarity, gain, frequency, mode);
+    }
+
+    @Override
+    public FractalNoiseGenerator copy() {
+        return new FractalNoiseGenerator(octaves, lacunarity, gain, frequency, mode);
+    }
+
+    @Override
+    public float samplePoint(float x, float y) {
+        float[] amplitudes = this.amplitudes;
+        Mode mode = this.mode;
+        float sum = 0;
+        float f = frequency;
+        for (int k = 0; k < amplitudes.length; k++) {
+            sum += octave(mode, k, f, amplitudes[k], x, y);
+            f *= lacunarity;
+        }
+        return finish(mode, sum);
+    }
+
+    // octaves are independent, so large regions evaluate them as parallel partial sums when already running on a
+    // fork/join worker; the partials are always added in octave order so the result does not depend on scheduling
+    @Override
+    public void fillRegion(float[] dst, int offset, int stride, int x0, int y0, int width, int height, float weight) {
+        float[] amplitudes = this.amplitudes;
+        Mode mode = this.mode;
+        int size = width * height;
+
+        boolean parallel = amplitudes.length > 1 && size >= PARALLEL_SAMPLES && ForkJoinTask.inForkJoinPool();
+        int count = parallel ? amplitudes.length : 1;
+        float[][] partials = takePartials(count, size);
+        if (parallel) {
+            List<OctaveTask> tasks = new ArrayList<>(amplitudes.length);
+            float f = frequency;
+            for (int k = 0; k < amplitudes.length; k++) {
+                tasks.add(new OctaveTask(mode, k, f, amplitudes[k], partials[k], x0, y0, width, height));
+                f *= lacunarity;
+            }
+            ForkJoinTask.invokeAll(tasks);
+        } else {
+            float f = frequency;
+            for (int k = 0; k < amplitudes.length; k++) {
+                fillOctave(mode, k, f, amplitudes[k], partials[0], x0, y0, width, height);
+                f *= lacunarity;
+            }
+        }
+
+        for (int j = 0; j < height; j++) {
+            int row = offset + j * stride;
+            for (int i = 0; i < width; i++) {
+                int index = j * width + i;
+                float sum = partials[0][index];
+                for (int k = 1; k < count; k++) {
+                    sum += partials[k][index];
+                }
+                dst[row + i] += weight * finish(mode, sum);
+            }
+        }
+        PARTIALS.get().push(partials);
+    }
+
+    // the first count planes of a per-thread buffer, zeroed over size. Buffers are lent from a stack rather than
+    // shared: a worker joining the octave tasks may run another region's fill, which then takes a buffer of its own
+    private static float[][] takePartials(int count, int size) {
+        float[][] partials = PARTIALS.get().poll();
+        if (partials == null || partials.length < count || partials[0].length < size) {
+            int planes = Math.max(count, partials == null ? 0 : partials.length);
+            int length = Math.max(size, partials == null ? 0 : partials[0].length);
+            partials = new float[planes][length];
+        } else {
+            for (int k = 0; k < count; k++) {
+                Arrays.fill(partials[k], 0, size, 0f);
+            }
+        }
+        return partials;
+    }
+
+    // accumulates into partial, which a single-threaded fill shares between all octaves
+    private static void fillOctave(Mode mode, int k, float f, float amplitude, float[] partial,
+                                   int x0, int y0, int width, int height) {
+        for (int j = 0; j < height; j++) {
+            for (int i = 0; i < width; i++) {
+                partial[j * width + i] += octave(mode, k, f, amplitude, x0 + i, y0 + j);
+            }
+        }
+    }
+
+    // each octave is shifted by an irrational step so the lattices of different octaves never line up at the origin
+    private static float octave(Mode mode, int k, float f, float amplitude, float x, float y) {
+        float shift = k * 17.618034f;
+        float n = GradientLattice.sample(x * f + shift, y * f - shift);
+        return switch (mode) {
+            case FBM -> amplitude * n;
+            case TURBULENCE -> amplitude * Math.abs(n);
+            case RIDGED -> {
+                float ridge = 1 - Math.abs(n);
+                yield amplitude * ridge * ridge;
+            }
+        };
+    }
+
+    // turbulence stays non-negative, ridged sums crowd towards 1 so they are recentered on zero
+    private static float finish(Mode mode, float sum) {
+        return mode == Mode.RIDGED ? sum * 2 - 1 : sum;
+    }
+
+    private static class OctaveTask extends RecursiveAction {
+        private final Mode mode;
+        private final int k;
+        private final float f;
+        private final float amplitude;
+        private final float[] partial;
+        private final int x0;
+        private final int y0;
+        private final int width;
+        private final int height;
+
+        private OctaveTask(Mode mode, int k, float f, float amplitude, float[] partial,
+                           int x0, int y0, int width, int height) {
+            this.mode = mode;
+            this.k = k;
+            this.f = f;
+            this.amplitude = amplitude;
+            this.partial = partial;
+            this.x0 = x0;
+            this.y0 = y0;
+            this.width = width;
+            this.height = height;
+        }
+
+        @Override
+        protected void compute() {
+            fillOctave(mode, k, f, amplitude, partial, x0, y0, width, height);
+        }
+    }
+}
@@ -15,16 +15,33 @@
 
 package me.cire3.apcsp.create.noise;
 
-import java.security.SecureRandom;
+import me.cire3.apcsp.create.random.RandomSource;
 
-public class GaussianNoiseGenerator implements NoiseGenerator {
-    private final SecureRandom random = new SecureRandom();
+public class GaussianNoiseGenerator implements RandomizedGenerator {
+    private static final ThreadLocal<double[]> ROW = ThreadLocal.withInitial(() -> new double[0]);
+
+    private RandomSource random;
     private double mu;
     private double sigma;
 
     public GaussianNoiseGenerator(double mu, double sigma) {
+        this(mu, sigma, RandomSource.seeded());
+    }
+
+    public GaussianNoiseGenerator(double mu, double sigma, RandomSource random) {
         this.mu = mu;
         this.sigma = sigma;
+        this.random = random;
+    }
+
+    @Override
+    public RandomSource getRandomSource() {
+        return random;
+    }
+
+    @Override
+    public void setRandomSource(RandomSource random) {
+        this.random = random;
     }
 
     public double getSigma() {
@@ -43,8 +60,35 @@ public class GaussianNoiseGenerator implements NoiseGenerator {
         this.mu = mu;
     }
 
+    @Override
+    public GaussianNoiseGenerator copy() {
+        return new GaussianNoiseGenerator(mu, sigma, random);
+    }
+
     @Override
     public float samplePoint(float x, float y) {
-        return (float) random.nextGaussian(mu, sigma);
+        return (float) (mu + sigma * random.nextGaussian((int) Math.floor(x), (int) Math.floor(y)));
+    }
+
+    @Override
+    public void fillRegion(float[] dst, int offset, int stride, int x0, int y0, int width, int height, float weight) {
+        double mu = this.mu;
+        double sigma = this.sigma;
+        RandomSource random = this.random;
+
+        double[] gaussians = ROW.get();
+        if (gaussians.length < width) {
+            gaussians = new double[width];
+            ROW.set(gaussians);
+        }
+
+        // a whole row of normals is drawn at once, then scaled
+        for (int j = 0; j < height; j++) {
+            random.nextGaussians(x0, y0 + j, gaussians, width);
+            int row = offset + j * stride;
+            for (int i = 0; i < width; i++) {
+                dst[row + i] += weight * (float) (mu + sigma * gaussians[i]);
+            }
+        }
     }
 }
@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2025 cire3. All Rights Reserved.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package me.cire3.apcsp.create.noise;
+
+import static me.cire3.apcsp.create.noise.PerlinNoiseGenerator.PERMUTATIONS;
+
+// textbook 2D gradient noise over Ken Perlin's permutation: unlike PerlinNoiseGenerator it fades the fractional
+// offsets inside the cell, so it is smooth between lattice points and zero only on them. Values stay within [-1, 1]
+final class GradientLattice {
+    private GradientLattice() {
+    }
+
+    static float sample(float x, float y) {
+        int xi = floor(x);
+        int yi = floor(y);
+        float fx = x - xi;
+        float fy = y - yi;
+
+        int X = xi & 0xFF;
+        int Y = yi & 0xFF;
+        int A = PERMUTATIONS[X] + Y;
+        int B = PERMUTATIONS[X + 1] + Y;
+
+        float u = fade(fx);
+        float v = fade(fy);
+        return lerp(v,
+                lerp(u, grad(PERMUTATIONS[A], fx, fy), grad(PERMUTATIONS[B], fx - 1, fy)),
+                lerp(u, grad(PERMUTATIONS[A + 1], fx, fy - 1), grad(PERMUTATIONS[B + 1], fx - 1, fy - 1)));
+    }
+
+    // adds weight * (sample((x0 + i) * frequency, y) * scale) to dst[offset + i]; a row stays inside one lattice row, so the
+    // fade in y is computed once and the corner hashes only change when x crosses into the next cell
+    static void sampleRow(float[] dst, int offset, int x0, int length, float frequency, float y,
+                          float weight, float scale) {
+        int yi = floor(y);
+        float fy = y - yi;
+        float v = fade(fy);
+        int Y = yi & 0xFF;
+
+        int cell = Integer.MIN_VALUE;
+        int h00 = 0, h10 = 0, h01 = 0, h11 = 0;
+        for (int i = 0; i < length; i++) {
+            float x = (float) (x0 + i) * frequency;
+            int xi = floor(x);
+            if (xi != cell) {
+                cell = xi;
+                int X = xi & 0xFF;
+                int A = PERMUTATIONS[X] + Y;
+                int B = PERMUTATIONS[X + 1] + Y;
+                h00 = PERMUTATIONS[A];
+                h10 = PERMUTATIONS[B];
+                h01 = PERMUTATIONS[A + 1];
+                h11 = PERMUTATIONS[B + 1];
+            }
+            float fx = x - xi;
+            float u = fade(fx);
+            dst[offset + i] += weight * (lerp(v,
+                    lerp(u, grad(h00, fx, fy), grad(h10, fx - 1, fy)),
+                    lerp(u, grad(h01, fx, fy - 1), grad(h11, fx - 1, fy - 1))) * scale);
+        }
+    }
+
+    // eight directions, the diagonals scaled by 1/sqrt(2) so every gradient has unit length
+    private static float grad(int hash, float x, float y) {
+        return switch (hash & 7) {
+            case 0 -> (x + y) * 0.70710677f;
+            case 1 -> (-x + y) * 0.70710677f;
+            case 2 -> (x - y) * 0.70710677f;
+            case 3 -> (-x - y) * 0.70710677f;
+            case 4 -> x;
+            case 5 -> -x;
+            case 6 -> y;
+            default -> -y;
+        };
+    }
+
+    static int floor(float value) {
+        int i = (int) value;
+        return value < i ? i - 1 : i;
+    }
+
+    private static float fade(float t) {
+        return t * t * t * (t * (t * 6 - 15) + 10);
+    }
+
+    private static float lerp(float t, float a, float b) {
+        return a + t * (b - a);
+    }
+}
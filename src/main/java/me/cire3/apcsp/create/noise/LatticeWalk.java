@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2025 cire3. All Rights Reserved.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package me.cire3.apcsp.create.noise;
+
+// per-thread integer planes for walking a lattice one row at a time. Pixel coordinates are integers, so every
+// step along a row moves exactly one cell with a zero fraction: a cell's right edge is the next cell's left edge
+// and a row's bottom edge is the next row's top edge, and only the new bottom edge has to be hashed per row
+final class LatticeWalk {
+    static final int PLANES = 5;
+
+    // floats hold every integer up to 2^24 exactly, past that (float) (x0 + i) stops stepping by one
+    private static final int EXACT = 1 << 24;
+
+    private static final ThreadLocal<LatticeWalk> LOCAL = ThreadLocal.withInitial(LatticeWalk::new);
+
+    final int[][] planes = new int[PLANES][0];
+
+    private LatticeWalk() {
+    }
+
+    // planes hold length + 1 entries so a row's last cell can read its right edge
+    static LatticeWalk local(int length) {
+        LatticeWalk walk = LOCAL.get();
+        if (walk.planes[0].length < length + 1) {
+            for (int i = 0; i < PLANES; i++) {
+                walk.planes[i] = new int[length + 1];
+            }
+        }
+        return walk;
+    }
+
+    static boolean walkable(int x0, int y0, int width, int height) {
+        return x0 >= -EXACT && (long) x0 + width <= EXACT && y0 >= -EXACT && (long) y0 + height <= EXACT;
+    }
+
+    static <T> void swap(T[] planes, int a, int b) {
+        T tmp = planes[a];
+        planes[a] = planes[b];
+        planes[b] = tmp;
+    }
+}
@@ -17,4 +17,23 @@ package me.cire3.apcsp.create.noise;
 
 public interface NoiseGenerator {
     float samplePoint(float x, float y);
+
+    // an independent generator with the same parameters and random source, setters on either leave the other alone
+    NoiseGenerator copy();
+
+    // identifies the field this generator produces when it depends only on its parameters and the coordinates,
+    // so equal keys can share cached samples; stochastic generators return null
+    default Object fieldKey() {
+        return null;
+    }
+
+    // accumulates weight * samplePoint over a width x height region starting at (x0, y0) into dst, row-major with the given stride
+    default void fillRegion(float[] dst, int offset, int stride, int x0, int y0, int width, int height, float weight) {
+        for (int j = 0; j < height; j++) {
+            int row = offset + j * stride;
+            for (int i = 0; i < width; i++) {
+                dst[row + i] += weight * samplePoint(x0 + i, y0 + j);
+            }
+        }
+    }
 }
@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2025 cire3. All Rights Reserved.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package me.cire3.apcsp.create.noise;
+
+import java.util.List;
+
+// OpenSimplex2 (the fast variant) in 2D: the plane is tiled with triangles, so each sample sums three corner
+// contributions instead of four and the lattice has no axis-aligned streaks. Corners are hashed from the seed, so
+// different seeds give unrelated fields. Values stay within roughly [-1, 1] before scale
+public class OpenSimplex2NoiseGenerator implements NoiseGenerator {
+    private static final long PRIME_X = 0x5205402B9270C86FL;
+    private static final long PRIME_Y = 0x598CD327003817B5L;
+    private static final long HASH_MULTIPLIER = 0x53A3F72DEEC546F5L;
+
+    private static final double SKEW = 0.366025403784439;
+    private static final double UNSKEW = -0.21132486540518713;
+    private static final float RADIUS_SQUARED = 0.5f;
+    private static final double NORMALIZER = 0.01001634121365712;
+
+    private static final int GRADIENT_EXPONENT = 7;
+    private static final float[] GRADIENTS = gradients();
+
+    private float frequency;
+    private float scale;
+    private long seed;
+
+    public OpenSimplex2NoiseGenerator(float frequency, float scale) {
+        this(frequency, scale, 0);
+    }
+
+    public OpenSimplex2NoiseGenerator(float frequency, float scale, long seed) {
+        this.frequency = frequency;
+        this.scale = scale;
+        this.seed = seed;
+    }
+
+    public float getFrequency() {
+        return frequency;
+    }
+
+    public void setFrequency(float frequency) {
+        this.frequency = frequency;
+    }
+
+    public float getScale() {
+        return scale;
+    }
+
+    public void setScale(float scale) {
+        this.scale = scale;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    @Override
+    public Object fieldKey() {
+        return List.of(OpenSimplex2NoiseGenerator.class, frequency, scale, seed);
+    }
+
+    @Override
+    public OpenSimplex2NoiseGenerator copy() {
+        return new OpenSimplex2NoiseGenerator(frequency, scale, seed);
+    }
+
+    @Override
+    public float samplePoint(float x, float y) {
+        return noise(seed, x * frequency, y * frequency) * scale;
+    }
+
+    static float noise(long seed, double x, double y) {
+        // skew onto the square lattice, the skew is done in double so large coordinates keep their fraction
+        double s = SKEW * (x + y);
+        double xs = x + s;
+        double ys = y + s;
+
+        int xsb = (int) Math.floor(xs);
+        int ysb = (int) Math.floor(ys);
+        float xi = (float) (xs - xsb);
+        float yi = (float) (ys - ysb);
+
+        long xsbp = xsb * PRIME_X;
+        long ysbp = ysb * PRIME_Y;
+
+        // unskewed offset to the base corner
+        float t = (xi + yi) * (float) UNSKEW;
+        float dx0 = xi + t;
+        float dy0 = yi + t;
+
+        float value = 0;
+        float a0 = RADIUS_SQUARED - dx0 * dx0 - dy0 * dy0;
+        if (a0 > 0) {
+            value = (a0 * a0) * (a0 * a0) * grad(seed, xsbp, ysbp, dx0, dy0);
+        }
+
+        // the far corner of the square, its falloff derived from a0 without another dot product
+        float a1 = (float) (2 * (1 + 2 * UNSKEW) * (1 / UNSKEW + 2)) * t
+                + ((float) (-2 * (1 + 2 * UNSKEW) * (1 + 2 * UNSKEW)) + a0);
+        if (a1 > 0) {
+            float dx1 = dx0 - (float) (1 + 2 * UNSKEW);
+            float dy1 = dy0 - (float) (1 + 2 * UNSKEW);
+            value += (a1 * a1) * (a1 * a1) * grad(seed, xsbp + PRIME_X, ysbp + PRIME_Y, dx1, dy1);
+        }
+
+        // the third corner depends on which triangle of the square the point is in
+        if (dy0 > dx0) {
+            float dx2 = dx0 - (float) UNSKEW;
+            float dy2 = dy0 - (float) (UNSKEW + 1);
+            float a2 = RADIUS_SQUARED - dx2 * dx2 - dy2 * dy2;
+            if (a2 > 0) {
+                value += (a2 * a2) * (a2 * a2) * grad(seed, xsbp, ysbp + PRIME_Y, dx2, dy2);
+            }
+        } else {
+            float dx2 = dx0 - (float) (UNSKEW + 1);
+            float dy2 = dy0 - (float) UNSKEW;
+            float a2 = RADIUS_SQUARED - dx2 * dx2 - dy2 * dy2;
+            if (a2 > 0) {
+                value += (a2 * a2) * (a2 * a2) * grad(seed, xsbp + PRIME_X, ysbp, dx2, dy2);
+            }
+        }
+        return value;
+    }
+
+    private static float grad(long seed, long xsvp, long ysvp, float dx, float dy) {
+        long hash = (seed ^ xsvp ^ ysvp) * HASH_MULTIPLIER;
+        hash ^= hash >> (64 - GRADIENT_EXPONENT + 1);
+        int index = (int) hash & (((1 << GRADIENT_EXPONENT) - 1) << 1);
+        return GRADIENTS[index] * dx + GRADIENTS[index | 1] * dy;
+    }
+
+    // 24 unit directions 15 degrees apart, the eight on the 45 degree diagonals first so the 128 slots, which the
+    // 24 do not divide, repeat an evenly spread subset. Each is pre-divided by the normalizer that maps the
+    // largest possible sum to 1
+    private static float[] gradients() {
+        double[] angles = new double[24];
+        int n = 0;
+        for (int k = 0; k < 8; k++) {
+            angles[n++] = 22.5 + 45 * k;
+        }
+        for (int k = 0; k < 24; k++) {
+            if (k % 3 != 1) {
+                angles[n++] = 7.5 + 15 * k;
+            }
+        }
+
+        float[] gradients = new float[2 << GRADIENT_EXPONENT];
+        for (int i = 0; i < gradients.length / 2; i++) {
+            double angle = Math.toRadians(angles[i % angles.length]);
+            gradients[2 * i] = (float) (Math.cos(angle) / NORMALIZER);
+            gradients[2 * i + 1] = (float) (Math.sin(angle) / NORMALIZER);
+        }
+        return gradients;
+    }
+}
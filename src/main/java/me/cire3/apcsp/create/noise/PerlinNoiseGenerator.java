@@ -15,10 +15,18 @@
 
 package me.cire3.apcsp.create.noise;
 
-import static me.cire3.apcsp.create.MathUtils.clamp;
+import me.cire3.apcsp.create.simd.Kernels;
+import me.cire3.apcsp.create.simd.LatticeRow;
+import me.cire3.apcsp.create.simd.ScalarKernels;
 
-public class PerlinNoiseGenerator implements NoiseGenerator {
-    private static final int[] PERMUTATIONS = new int[512];
+import java.util.Arrays;
+import java.util.List;
+
+import static me.cire3.apcsp.create.simd.ScalarKernels.fquint;
+
+public class PerlinNoiseGenerator implements AnimatedGenerator {
+    // shared with GradientLattice
+    static final int[] PERMUTATIONS = new int[512];
 
     private static final int[] PRE_GENNED_PERMS = {
             151, 160, 137, 91, 90, 15, 131, 13, 201, 95, 96, 53, 194, 233, 7, 225, 140, 36, 103, 30, 69, 142,
@@ -42,9 +50,15 @@ public class PerlinNoiseGenerator implements NoiseGenerator {
     }
 
     private float scale;
+    private float time;
 
     public PerlinNoiseGenerator(float scale) {
+        this(scale, 0);
+    }
+
+    public PerlinNoiseGenerator(float scale, float time) {
         this.scale = scale;
+        this.time = time;
     }
 
     public float getScale() {
@@ -55,53 +69,140 @@ public class PerlinNoiseGenerator implements NoiseGenerator {
         this.scale = scale;
     }
 
+    @Override
+    public float getTime() {
+        return time;
+    }
+
+    @Override
+    public void setTime(float time) {
+        this.time = time;
+    }
+
+    @Override
+    public Object fieldKey() {
+        return List.of(PerlinNoiseGenerator.class, scale, time);
+    }
+
+    @Override
+    public PerlinNoiseGenerator copy() {
+        return new PerlinNoiseGenerator(scale, time);
+    }
+
+    // the z = 0 and z = -1 layers of slice Z hash from AA + Z instead of AA, the z step of 3D Perlin, so slice 0 is
+    // the 2D field; between slices the result is eased from one slice to the next
     @Override
     public float samplePoint(float x, float y) {
-        int X = (int) Math.floor(x) & 0xFF;
-        int Y = (int) Math.floor(y) & 0xFF;
+        int Z = (int) Math.floor(time);
+        float w = fquint((float) (time - Math.floor(time)));
+        if (w == 0) {
+            return sample(x, y, Z & 0xFF);
+        }
+        return (1 - w) * sample(x, y, Z & 0xFF) + w * sample(x, y, (Z + 1) & 0xFF);
+    }
 
-        float dx = (float) (x - Math.floor(x));
-        float dy = (float) (y - Math.floor(y));
+    private float sample(float x, float y, int Z) {
+        int Y = (int) Math.floor(y) & 0xFF;
+        float v = fquint((float) (y - Math.floor(y)));
 
-        float u = fquint(dx);
-        float v = fquint(dy);
+        int X = (int) Math.floor(x) & 0xFF;
+        float u = fquint((float) (x - Math.floor(x)));
 
         int A = PERMUTATIONS[X] + Y;
-        int AA = PERMUTATIONS[A];
-        int AB = PERMUTATIONS[A + 1];
+        int AA = PERMUTATIONS[A] + Z;
+        int AB = PERMUTATIONS[A + 1] + Z;
         int B = PERMUTATIONS[X + 1] + Y;
-        int BA = PERMUTATIONS[B];
-        int BB = PERMUTATIONS[B + 1];
-
-        return clamp(interpolate(
-                0,
-                interpolate(
-                        v,
-                        interpolate(
-                                u,
-                                grad(PERMUTATIONS[AA], x, y, 0),
-                                grad(PERMUTATIONS[BA], x - 1, y, 0)
-                        ),
-                        interpolate(
-                                u,
-                                grad(PERMUTATIONS[AB], x, y - 1, 0),
-                                grad(PERMUTATIONS[BB], x - 1, y - 1, 0)
-                        )
-                ),
-                interpolate(
-                        v,
-                        interpolate(
-                                u,
-                                grad(PERMUTATIONS[AA + 1], x, y, -1),
-                                grad(PERMUTATIONS[BA + 1], x - 1, y, -1)
-                        ),
-                        interpolate(
-                                u,
-                                grad(PERMUTATIONS[AB + 1], x, y - 1, -1),
-                                grad(PERMUTATIONS[BB + 1], x - 1, y - 1, -1)
-                        )
-                )
-        ) * scale, -3, 3);
+        int BA = PERMUTATIONS[B] + Z;
+        int BB = PERMUTATIONS[B + 1] + Z;
+
+        return ScalarKernels.perlin(u, v, scale,
+                grad(PERMUTATIONS[AA], x, y, 0),
+                grad(PERMUTATIONS[BA], x - 1, y, 0),
+                grad(PERMUTATIONS[AB], x, y - 1, 0),
+                grad(PERMUTATIONS[BB], x - 1, y - 1, 0),
+                grad(PERMUTATIONS[AA + 1], x, y, -1),
+                grad(PERMUTATIONS[BA + 1], x - 1, y, -1),
+                grad(PERMUTATIONS[AB + 1], x, y - 1, -1),
+                grad(PERMUTATIONS[BB + 1], x - 1, y - 1, -1));
+    }
+
+    @Override
+    public void fillRegion(float[] dst, int offset, int stride, int x0, int y0, int width, int height, float weight) {
+        if (!LatticeWalk.walkable(x0, y0, width, height)) {
+            AnimatedGenerator.super.fillRegion(dst, offset, stride, x0, y0, width, height, weight);
+            return;
+        }
+
+        int Z = (int) Math.floor(time);
+        float w = fquint((float) (time - Math.floor(time)));
+        if (w == 0) {
+            fillSlice(dst, offset, stride, x0, y0, width, height, weight, Z & 0xFF);
+        } else {
+            fillSlice(dst, offset, stride, x0, y0, width, height, weight * (1 - w), Z & 0xFF);
+            fillSlice(dst, offset, stride, x0, y0, width, height, weight * w, (Z + 1) & 0xFF);
+        }
+    }
+
+    private void fillSlice(float[] dst, int offset, int stride, int x0, int y0, int width, int height, float weight,
+                           int Z) {
+        Kernels kernels = Kernels.get();
+        LatticeRow lattice = LatticeRow.local(width);
+        float[] fraction = lattice.fraction;
+        float[][] g = lattice.corners;
+        Arrays.fill(fraction, 0, width, 0f);
+
+        // column[i] is PERMUTATIONS[X] of lattice column x0 + i, and each edge plane holds the two gradient hashes
+        // of the corner where that column meets the edge's row
+        int[][] planes = LatticeWalk.local(width).planes;
+        int[] column = planes[0];
+        for (int i = 0; i <= width; i++) {
+            column[i] = PERMUTATIONS[(x0 + i) & 0xFF];
+        }
+        hashEdge(column, y0 & 0xFF, Z, width, planes[1], planes[2]);
+
+        for (int j = 0; j < height; j++) {
+            float y = y0 + j;
+            int Y = (y0 + j) & 0xFF;
+            float v = fquint((float) (y - Math.floor(y)));
+
+            // the previous row's bottom edge is this row's top edge
+            if (j > 0) {
+                LatticeWalk.swap(planes, 1, 3);
+                LatticeWalk.swap(planes, 2, 4);
+            }
+            hashEdge(column, Y + 1, Z, width, planes[3], planes[4]);
+
+            int[] top = planes[1];
+            int[] topZ = planes[2];
+            int[] bottom = planes[3];
+            int[] bottomZ = planes[4];
+
+            // gradients depend on the absolute position so they are rebuilt, only the hashing is carried over
+            for (int i = 0; i < width; i++) {
+                float x = x0 + i;
+
+                g[0][i] = grad(top[i], x, y, 0);
+                g[1][i] = grad(top[i + 1], x - 1, y, 0);
+                g[2][i] = grad(bottom[i], x, y - 1, 0);
+                g[3][i] = grad(bottom[i + 1], x - 1, y - 1, 0);
+                g[4][i] = grad(topZ[i], x, y, -1);
+                g[5][i] = grad(topZ[i + 1], x - 1, y, -1);
+                g[6][i] = grad(bottomZ[i], x, y - 1, -1);
+                g[7][i] = grad(bottomZ[i + 1], x - 1, y - 1, -1);
+            }
+
+            kernels.perlinRow(lattice, width, v, scale, weight, dst, offset + j * stride);
+        }
+    }
+
+    // Y may be 256 for the bottom edge of the last lattice row, which the doubled table wraps back to row 0; corner
+    // plus Z stays below 511 for the same reason
+    private static void hashEdge(int[] column, int Y, int Z, int width, int[] hash, int[] hashZ) {
+        for (int i = 0; i <= width; i++) {
+            int corner = PERMUTATIONS[column[i] + Y] + Z;
+            hash[i] = PERMUTATIONS[corner];
+            hashZ[i] = PERMUTATIONS[corner + 1];
+        }
     }
 
     private static float grad(int h, float x, float y, float z) {
@@ -110,12 +211,4 @@ public class PerlinNoiseGenerator implements NoiseGenerator {
         float v = hash < 4 ? y : (hash == 12 || hash == 14) ? x : z;
         return ((hash & 1) == 0 ? u : -u) + ((hash & 2) == 0 ? v : -v);
     }
-
-    private static float interpolate(float a, float b, float partial) {
-        return b * partial + a * (1 - partial);
-    }
-
-    private static float fquint(float frag) {
-        return frag * frag * frag * (frag * (frag * 6 - 15) + 10);
-    }
 }
@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2025 cire3. All Rights Reserved.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package me.cire3.apcsp.create.noise;
+
+import me.cire3.apcsp.create.random.RandomSource;
+
+import java.util.List;
+
+public interface RandomizedGenerator extends NoiseGenerator {
+    RandomSource getRandomSource();
+
+    void setRandomSource(RandomSource random);
+
+    // gives every randomized generator in the pipeline its own stream of one seed, so a run can be reproduced
+    static void seedAll(List<? extends NoiseGenerator> generators, long seed) {
+        RandomSource root = RandomSource.seeded(seed);
+        for (int i = 0; i < generators.size(); i++) {
+            NoiseGenerator generator = generators.get(i);
+            if (generator instanceof WeightedGenerator weighted) {
+                generator = weighted.getGenerator();
+            }
+            if (generator instanceof RandomizedGenerator randomized) {
+                randomized.setRandomSource(root.split(i));
+            }
+        }
+    }
+}
@@ -15,14 +15,39 @@
 
 package me.cire3.apcsp.create.noise;
 
-import java.security.SecureRandom;
+import me.cire3.apcsp.create.random.CounterRandomSource;
+import me.cire3.apcsp.create.random.RandomSource;
 
-public class SaltAndPepperNoiseGenerator implements NoiseGenerator {
-    private final SecureRandom random = new SecureRandom();
+// impulse noise: a fraction probability of pixels is pushed to white or black and the rest are left alone. Hits are
+// placed by geometric skips inside row blocks aligned to the image, each seeded from its own (block, row) bits, so
+// the work is proportional to the pixels hit and a pixel's hit does not depend on how the image is tiled
+public class SaltAndPepperNoiseGenerator implements RandomizedGenerator {
+    private static final int BLOCK = 64;
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    // enough to saturate every channel at weight 1, black goes to white at 20 * 13 and white to black at -8.5
+    private static final float IMPULSE = 13f;
+
+    private RandomSource random;
     private float probability;
 
     public SaltAndPepperNoiseGenerator(float probability) {
+        this(probability, RandomSource.seeded());
+    }
+
+    public SaltAndPepperNoiseGenerator(float probability, RandomSource random) {
         this.probability = probability;
+        this.random = random;
+    }
+
+    @Override
+    public RandomSource getRandomSource() {
+        return random;
+    }
+
+    @Override
+    public void setRandomSource(RandomSource random) {
+        this.random = random;
     }
 
     public float getProbability() {
@@ -33,8 +58,79 @@ public class SaltAndPepperNoiseGenerator implements NoiseGenerator {
         this.probability = probability;
     }
 
+    @Override
+    public SaltAndPepperNoiseGenerator copy() {
+        return new SaltAndPepperNoiseGenerator(probability, random);
+    }
+
     @Override
     public float samplePoint(float x, float y) {
-        return random.nextBoolean() ? 1 : -1;
+        int xi = (int) Math.floor(x);
+        int yi = (int) Math.floor(y);
+        int block = Math.floorDiv(xi, BLOCK);
+        int target = xi - block * BLOCK;
+
+        double logMiss = logMiss(probability);
+        if (logMiss == 0) {
+            return 0;
+        }
+        long state = random.bits(block, yi);
+        int position = -1;
+        while (true) {
+            state += GOLDEN_GAMMA;
+            long bits = CounterRandomSource.mix64(state);
+            position += skip(bits, logMiss) + 1;
+            if (position >= target) {
+                return position == target ? impulse(bits) : 0;
+            }
+        }
+    }
+
+    @Override
+    public void fillRegion(float[] dst, int offset, int stride, int x0, int y0, int width, int height, float weight) {
+        RandomSource random = this.random;
+        double logMiss = logMiss(probability);
+        if (logMiss == 0) {
+            return;
+        }
+
+        int firstBlock = Math.floorDiv(x0, BLOCK);
+        int lastBlock = Math.floorDiv(x0 + width - 1, BLOCK);
+        for (int j = 0; j < height; j++) {
+            int row = offset + j * stride;
+            for (int block = firstBlock; block <= lastBlock; block++) {
+                int from = block * BLOCK - x0;
+                long state = random.bits(block, y0 + j);
+                int position = -1;
+                while (true) {
+                    state += GOLDEN_GAMMA;
+                    long bits = CounterRandomSource.mix64(state);
+                    position += skip(bits, logMiss) + 1;
+                    if (position >= BLOCK) {
+                        break;
+                    }
+                    int i = from + position;
+                    if (i >= 0 && i < width) {
+                        dst[row + i] += weight * impulse(bits);
+                    }
+                }
+            }
+        }
+    }
+
+    // log of the chance a pixel is missed, 0 when nothing can be hit and -infinity when everything is
+    private static double logMiss(float probability) {
+        return Math.log1p(-Math.min(Math.max(probability, 0), 1));
+    }
+
+    // misses before the next hit, geometric with success probability 1 - e^logMiss, capped past the block
+    private static int skip(long bits, double logMiss) {
+        double u = ((bits >>> 11) + 1) * 0x1.0p-53;
+        return (int) Math.min(Math.floor(Math.log(u) / logMiss), BLOCK);
+    }
+
+    // the low bit is independent of the top 53 used for the skip
+    private static float impulse(long bits) {
+        return (bits & 1) == 0 ? IMPULSE : -IMPULSE;
     }
 }
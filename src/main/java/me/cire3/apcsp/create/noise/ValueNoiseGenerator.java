@@ -15,12 +15,19 @@
 
 package me.cire3.apcsp.create.noise;
 
-import me.cire3.apcsp.create.MathUtils;
+import me.cire3.apcsp.create.random.RandomSource;
+import me.cire3.apcsp.create.simd.Kernels;
+import me.cire3.apcsp.create.simd.LatticeRow;
+import me.cire3.apcsp.create.simd.ScalarKernels;
 
-import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.List;
+import java.util.random.RandomGenerator;
 
-public class ValueNoiseGenerator implements NoiseGenerator {
-    private final SecureRandom random = new SecureRandom();
+import static me.cire3.apcsp.create.simd.ScalarKernels.ss;
+
+public class ValueNoiseGenerator implements RandomizedGenerator, AnimatedGenerator {
+    private RandomSource random;
 
     private final int[] grid;
     private final int[] permutation;
@@ -28,13 +35,43 @@ public class ValueNoiseGenerator implements NoiseGenerator {
     private final int mask;
 
     private float scale;
+    private float time;
 
     public ValueNoiseGenerator(int width, int height, float scale) {
+        this(width, height, scale, RandomSource.seeded());
+    }
+
+    public ValueNoiseGenerator(int width, int height, float scale, RandomSource random) {
+        if (width < 1 || height < 1 || Integer.bitCount(Math.max(width, height)) != 1) {
+            throw new IllegalArgumentException("Value noise size must be a positive power of two: " + width + "x"
+                    + height);
+        }
         this.dimension = Math.max(width, height);
         this.mask = dimension - 1;
 
         this.grid = new int[dimension];
         this.permutation = new int[dimension * 2];
+        this.random = random;
+        this.scale = scale;
+
+        buildLattice();
+    }
+
+    // setRandomSource rebuilds the lattice in place, so a copy needs its own arrays
+    private ValueNoiseGenerator(ValueNoiseGenerator other) {
+        this.dimension = other.dimension;
+        this.mask = other.mask;
+        this.grid = other.grid.clone();
+        this.permutation = other.permutation.clone();
+        this.random = other.random;
+        this.scale = other.scale;
+        this.time = other.time;
+    }
+
+    private void buildLattice() {
+        RandomGenerator random = this.random.sequence();
+        // the upper half is only partially rewritten below, clear it so a reseed matches a fresh generator
+        Arrays.fill(permutation, 0);
 
         for (int i = 0; i < dimension; i++) {
             grid[i] = random.nextInt();
@@ -48,8 +85,23 @@ public class ValueNoiseGenerator implements NoiseGenerator {
             permutation[i] = tmp;
             permutation[k + dimension] = permutation[k];
         }
+    }
 
-        this.scale = scale;
+    @Override
+    public RandomSource getRandomSource() {
+        return random;
+    }
+
+    // the lattice is drawn once from the source, so reseeding rebuilds it
+    @Override
+    public void setRandomSource(RandomSource random) {
+        this.random = random;
+        buildLattice();
+    }
+
+    // the lattice is square, this is its side
+    public int getSize() {
+        return dimension;
     }
 
     public float getScale() {
@@ -60,8 +112,40 @@ public class ValueNoiseGenerator implements NoiseGenerator {
         this.scale = scale;
     }
 
+    @Override
+    public float getTime() {
+        return time;
+    }
+
+    @Override
+    public void setTime(float time) {
+        this.time = time;
+    }
+
+    // the lattice is a function of the random source, so only a reproducible source gives a shareable key
+    @Override
+    public Object fieldKey() {
+        return random.isDeterministic() ? List.of(ValueNoiseGenerator.class, dimension, random, time) : null;
+    }
+
+    @Override
+    public ValueNoiseGenerator copy() {
+        return new ValueNoiseGenerator(this);
+    }
+
+    // slice Z reads the grid Z entries further along, so every slice draws different corner values from the same
+    // lattice and slice 0 is the 2D field; between slices the result is eased from one slice to the next
     @Override
     public float samplePoint(float x, float y) {
+        int Z = (int) Math.floor(time);
+        float w = ss((float) (time - Math.floor(time)));
+        if (w == 0) {
+            return sample(x, y, Z);
+        }
+        return (1 - w) * sample(x, y, Z) + w * sample(x, y, Z + 1);
+    }
+
+    private float sample(float x, float y, int Z) {
         int xi = (int) Math.floor(x);
         int yi = (int) Math.floor(y);
 
@@ -73,25 +157,74 @@ public class ValueNoiseGenerator implements NoiseGenerator {
         int residueY0 = yi & mask;
         int residueY1 = (residueY0 + 1) & mask;
 
-        float c1 = grid[permutation[permutation[residueX0] + residueY0] & mask];
-        float c2 = grid[permutation[permutation[residueX1] + residueY0] & mask];
-        float c3 = grid[permutation[permutation[residueX0] + residueY1] & mask];
-        float c4 = grid[permutation[permutation[residueX1] + residueY1] & mask];
+        float c1 = grid[(permutation[permutation[residueX0] + residueY0] + Z) & mask];
+        float c2 = grid[(permutation[permutation[residueX1] + residueY0] + Z) & mask];
+        float c3 = grid[(permutation[permutation[residueX0] + residueY1] + Z) & mask];
+        float c4 = grid[(permutation[permutation[residueX1] + residueY1] + Z) & mask];
 
-        float sx = ss(dx);
-        float sy = ss(dy);
+        return ScalarKernels.value(ss(dx), ss(dy), c1, c2, c3, c4);
+    }
 
-        float ix0 = interpolate(c1, c2, sx);
-        float iy0 = interpolate(c3, c4, sy);
+    @Override
+    public void fillRegion(float[] dst, int offset, int stride, int x0, int y0, int width, int height, float weight) {
+        if (!LatticeWalk.walkable(x0, y0, width, height)) {
+            RandomizedGenerator.super.fillRegion(dst, offset, stride, x0, y0, width, height, weight);
+            return;
+        }
 
-        return MathUtils.clamp(interpolate(ix0, iy0, sy), -2, 2);
+        int Z = (int) Math.floor(time);
+        float w = ss((float) (time - Math.floor(time)));
+        if (w == 0) {
+            fillSlice(dst, offset, stride, x0, y0, width, height, weight, Z);
+        } else {
+            fillSlice(dst, offset, stride, x0, y0, width, height, weight * (1 - w), Z);
+            fillSlice(dst, offset, stride, x0, y0, width, height, weight * w, Z + 1);
+        }
     }
 
-    private static float ss(float frag) {
-        return frag * frag * (3 - 2 * frag);
+    private void fillSlice(float[] dst, int offset, int stride, int x0, int y0, int width, int height, float weight,
+                           int Z) {
+        Kernels kernels = Kernels.get();
+        LatticeRow lattice = LatticeRow.local(width);
+        float[] fraction = lattice.fraction;
+        float[][] c = lattice.corners;
+        Arrays.fill(fraction, 0, width, 0f);
+
+        // the column half of each corner hash is the same on every row
+        int[][] planes = LatticeWalk.local(width).planes;
+        int[] left = planes[0];
+        int[] right = planes[1];
+        for (int i = 0; i < width; i++) {
+            int residueX0 = (x0 + i) & mask;
+            left[i] = permutation[residueX0];
+            right[i] = permutation[(residueX0 + 1) & mask];
+        }
+
+        int previousY1 = -1;
+        for (int j = 0; j < height; j++) {
+            int residueY0 = (y0 + j) & mask;
+            int residueY1 = (residueY0 + 1) & mask;
+
+            // the previous row's bottom corners are this row's top corners unless the mask is not a power of two
+            // and the residues skipped
+            if (residueY0 == previousY1) {
+                LatticeWalk.swap(c, 0, 2);
+                LatticeWalk.swap(c, 1, 3);
+            } else {
+                fillEdge(left, right, residueY0, Z, width, c[0], c[1]);
+            }
+            fillEdge(left, right, residueY1, Z, width, c[2], c[3]);
+            previousY1 = residueY1;
+
+            // rows sit on integer coordinates so the vertical fraction is always zero
+            kernels.valueRow(lattice, width, ss(0f), weight, dst, offset + j * stride);
+        }
     }
 
-    private static float interpolate(float a, float b, float partial) {
-        return b * partial + a * (1 - partial);
+    private void fillEdge(int[] left, int[] right, int residueY, int Z, int width, float[] c0, float[] c1) {
+        for (int i = 0; i < width; i++) {
+            c0[i] = grid[(permutation[left[i] + residueY] + Z) & mask];
+            c1[i] = grid[(permutation[right[i] + residueY] + Z) & mask];
+        }
     }
 }
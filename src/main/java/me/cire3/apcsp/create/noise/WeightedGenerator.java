@@ -24,6 +24,10 @@ public class WeightedGenerator implements NoiseGenerator {
         this.weight = weight;
     }
 
+    public NoiseGenerator getGenerator() {
+        return generator;
+    }
+
     public float getWeight() {
         return weight;
     }
@@ -32,8 +36,18 @@ public class WeightedGenerator implements NoiseGenerator {
         this.weight = weight;
     }
 
+    @Override
+    public WeightedGenerator copy() {
+        return new WeightedGenerator(generator.copy(), weight);
+    }
+
     @Override
     public float samplePoint(float x, float y) {
         return weight * generator.samplePoint(x, y);
     }
+
+    @Override
+    public void fillRegion(float[] dst, int offset, int stride, int x0, int y0, int width, int height, float weight) {
+        generator.fillRegion(dst, offset, stride, x0, y0, width, height, weight * this.weight);
+    }
 }
@@ -15,13 +15,47 @@
 
 package me.cire3.apcsp.create.noise;
 
-import java.security.SecureRandom;
+import me.cire3.apcsp.create.random.RandomSource;
 
-public class WhiteNoiseGenerator implements NoiseGenerator {
-    private final SecureRandom random = new SecureRandom();
+public class WhiteNoiseGenerator implements RandomizedGenerator {
+    private RandomSource random;
+
+    public WhiteNoiseGenerator() {
+        this(RandomSource.seeded());
+    }
+
+    public WhiteNoiseGenerator(RandomSource random) {
+        this.random = random;
+    }
+
+    @Override
+    public RandomSource getRandomSource() {
+        return random;
+    }
+
+    @Override
+    public void setRandomSource(RandomSource random) {
+        this.random = random;
+    }
+
+    @Override
+    public WhiteNoiseGenerator copy() {
+        return new WhiteNoiseGenerator(random);
+    }
 
     @Override
     public float samplePoint(float x, float y) {
-        return (random.nextFloat() - 0.5F) * 2;
+        return (random.nextFloat((int) Math.floor(x), (int) Math.floor(y)) - 0.5F) * 2;
+    }
+
+    @Override
+    public void fillRegion(float[] dst, int offset, int stride, int x0, int y0, int width, int height, float weight) {
+        RandomSource random = this.random;
+        for (int j = 0; j < height; j++) {
+            int row = offset + j * stride;
+            for (int i = 0; i < width; i++) {
+                dst[row + i] += weight * ((random.nextFloat(x0 + i, y0 + j) - 0.5F) * 2);
+            }
+        }
     }
 }
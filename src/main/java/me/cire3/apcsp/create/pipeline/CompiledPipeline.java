@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2025 cire3. All Rights Reserved.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package me.cire3.apcsp.create.pipeline;
+
+import me.cire3.apcsp.create.cache.NoiseFieldCache;
+import me.cire3.apcsp.create.noise.NoiseGenerator;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.List;
+
+// one generator standing for a whole compiled pipeline. Its fillRegion is a single method handle that calls every
+// layer's own fillRegion, looked up on the layer's concrete class and bound to the instance, with the layer weight
+// multiplied into the incoming weight. Once the handle is hot the JVM compiles it as one method with constant
+// receivers, so each call is monomorphic and can be inlined instead of going through NoiseGenerator and
+// WeightedGenerator for every layer
+public final class CompiledPipeline implements NoiseGenerator {
+    private static final MethodType FILL = MethodType.methodType(void.class,
+            float[].class, int.class, int.class, int.class, int.class, int.class, int.class, float.class);
+    private static final MethodHandle MULTIPLY;
+    private static final MethodHandle CACHED_FILL;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            MULTIPLY = lookup.findStatic(CompiledPipeline.class, "multiply",
+                    MethodType.methodType(float.class, float.class, float.class));
+            CACHED_FILL = lookup.findVirtual(NoiseFieldCache.class, "fillRegion",
+                    FILL.insertParameterTypes(0, NoiseGenerator.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final List<NoiseGenerator> layers;
+    private final float[] weights;
+    private final NoiseFieldCache cache;
+    private final MethodHandle kernel;
+    // the same bound, weighted handles one per layer, for callers that time the layers separately
+    private final MethodHandle[] layerKernels;
+
+    CompiledPipeline(List<NoiseGenerator> layers, float[] weights, NoiseFieldCache cache) {
+        this.layers = List.copyOf(layers);
+        this.weights = weights.clone();
+        this.cache = cache;
+
+        MethodHandle kernel = MethodHandles.empty(FILL);
+        this.layerKernels = new MethodHandle[layers.size()];
+        for (int i = layers.size() - 1; i >= 0; i--) {
+            MethodHandle layer = fill(layers.get(i), cache);
+            if (weights[i] != 1f) {
+                layer = MethodHandles.filterArguments(layer, 7, MethodHandles.insertArguments(MULTIPLY, 0, weights[i]));
+            }
+            layerKernels[i] = layer;
+            // runs this layer, then the rest of the chain, with the same arguments
+            kernel = i == layers.size() - 1 ? layer : MethodHandles.foldArguments(kernel, layer);
+        }
+        this.kernel = kernel;
+    }
+
+    private static MethodHandle fill(NoiseGenerator layer, NoiseFieldCache cache) {
+        if (cache != null && layer.fieldKey() != null) {
+            return MethodHandles.insertArguments(CACHED_FILL, 0, cache, layer);
+        }
+        try {
+            return MethodHandles.publicLookup().findVirtual(layer.getClass(), "fillRegion", FILL).bindTo(layer);
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            // classes outside the public API, such as lambdas, are called through the interface
+            try {
+                return MethodHandles.publicLookup().findVirtual(NoiseGenerator.class, "fillRegion", FILL).bindTo(layer);
+            } catch (ReflectiveOperationException impossible) {
+                throw new IllegalStateException(impossible);
+            }
+        }
+    }
+
+    private static float multiply(float layerWeight, float weight) {
+        return weight * layerWeight;
+    }
+
+    public List<NoiseGenerator> getLayers() {
+        return layers;
+    }
+
+    public float[] getWeights() {
+        return weights.clone();
+    }
+
+    // the whole field is only shareable when every layer is; with a cache the layers are cached one by one instead
+    @Override
+    public Object fieldKey() {
+        if (cache != null) {
+            return null;
+        }
+        List<Object> key = new ArrayList<>();
+        key.add(CompiledPipeline.class);
+        for (int i = 0; i < layers.size(); i++) {
+            Object layerKey = layers.get(i).fieldKey();
+            if (layerKey == null) {
+                return null;
+            }
+            key.add(layerKey);
+            key.add(weights[i]);
+        }
+        return key;
+    }
+
+    @Override
+    public CompiledPipeline copy() {
+        List<NoiseGenerator> copies = new ArrayList<>(layers.size());
+        for (NoiseGenerator layer : layers) {
+            copies.add(layer.copy());
+        }
+        return new CompiledPipeline(copies, weights, cache);
+    }
+
+    @Override
+    public float samplePoint(float x, float y) {
+        float sum = 0;
+        for (int i = 0; i < weights.length; i++) {
+            sum += weights[i] * layers.get(i).samplePoint(x, y);
+        }
+        return sum;
+    }
+
+    @Override
+    public void fillRegion(float[] dst, int offset, int stride, int x0, int y0, int width, int height, float weight) {
+        try {
+            kernel.invokeExact(dst, offset, stride, x0, y0, width, height, weight);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    // reports how long each layer took, by its index in getLayers()
+    public interface LayerTimer {
+        void record(int layer, long nanos);
+    }
+
+    // same result as fillRegion, with the layers called one at a time so each can be timed
+    public void fillRegion(float[] dst, int offset, int stride, int x0, int y0, int width, int height, float weight,
+                           LayerTimer timer) {
+        for (int i = 0; i < layerKernels.length; i++) {
+            long start = System.nanoTime();
+            try {
+                layerKernels[i].invokeExact(dst, offset, stride, x0, y0, width, height, weight);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new IllegalStateException(t);
+            }
+            timer.record(i, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder out = new StringBuilder("CompiledPipeline[");
+        for (int i = 0; i < layers.size(); i++) {
+            out.append(i == 0 ? "" : ", ").append(layers.get(i).getClass().getSimpleName()).append('@').append(weights[i]);
+        }
+        return out.append(']').toString();
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2025 cire3. All Rights Reserved.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package me.cire3.apcsp.create.pipeline;
+
+import me.cire3.apcsp.create.cache.NoiseFieldCache;
+import me.cire3.apcsp.create.noise.GaussianNoiseGenerator;
+import me.cire3.apcsp.create.noise.NoiseGenerator;
+import me.cire3.apcsp.create.noise.WeightedGenerator;
+import me.cire3.apcsp.create.noise.WhiteNoiseGenerator;
+import me.cire3.apcsp.create.random.RandomSource;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// rewrites a generator list into the fewest layers that render the same image, then binds them into one kernel
+public final class PipelineCompiler {
+    public enum Level {
+        // same values up to float rounding: zero weights dropped, nested weights folded, layers with the same
+        // deterministic field summed, and Gaussians drawing from the same deterministic source combined linearly
+        EXACT,
+        // also merges independent Gaussians into one whose variance is the sum, same distribution but new values
+        DISTRIBUTION,
+        // also treats white noise as a Gaussian of the same variance, so it can join the merged Gaussian
+        APPROXIMATE
+    }
+
+    private static final double WHITE_SIGMA = Math.sqrt(1 / 3.0);
+
+    private PipelineCompiler() {
+    }
+
+    public static CompiledPipeline compile(List<? extends NoiseGenerator> generators) {
+        return compile(generators, null);
+    }
+
+    // with a cache, layers that have a field key are filled through it one by one
+    public static CompiledPipeline compile(List<? extends NoiseGenerator> generators, NoiseFieldCache cache) {
+        List<Layer> layers = layers(generators, Level.EXACT);
+        List<NoiseGenerator> compiled = new ArrayList<>(layers.size());
+        float[] weights = new float[layers.size()];
+        for (int i = 0; i < weights.length; i++) {
+            compiled.add(layers.get(i).generator);
+            weights[i] = layers.get(i).weight;
+        }
+        return new CompiledPipeline(compiled, weights, cache);
+    }
+
+    public static List<WeightedGenerator> optimize(List<? extends NoiseGenerator> generators, Level level) {
+        List<WeightedGenerator> optimized = new ArrayList<>();
+        for (Layer layer : layers(generators, level)) {
+            optimized.add(new WeightedGenerator(layer.generator, layer.weight));
+        }
+        return optimized;
+    }
+
+    private static List<Layer> layers(List<? extends NoiseGenerator> generators, Level level) {
+        List<Layer> layers = new ArrayList<>();
+        for (NoiseGenerator generator : generators) {
+            flatten(generator, 1f, layers, level);
+        }
+
+        layers = mergeGaussians(layers, level);
+
+        // layers drawing the same deterministic field add up to one layer with the summed weight
+        Map<Object, Layer> keyed = new LinkedHashMap<>();
+        List<Layer> merged = new ArrayList<>();
+        for (Layer layer : layers) {
+            Object key = layer.generator.fieldKey();
+            Layer existing = key == null ? null : keyed.get(key);
+            if (existing != null) {
+                existing.weight += layer.weight;
+            } else {
+                if (key != null) {
+                    keyed.put(key, layer);
+                }
+                merged.add(layer);
+            }
+        }
+
+        merged.removeIf(layer -> layer.weight == 0);
+        return merged;
+    }
+
+    private static void flatten(NoiseGenerator generator, float weight, List<Layer> layers, Level level) {
+        if (weight == 0) {
+            return;
+        }
+        if (generator instanceof WeightedGenerator weighted) {
+            flatten(weighted.getGenerator(), weight * weighted.getWeight(), layers, level);
+        } else if (generator instanceof CompiledPipeline pipeline) {
+            float[] weights = pipeline.getWeights();
+            for (int i = 0; i < weights.length; i++) {
+                flatten(pipeline.getLayers().get(i), weight * weights[i], layers, level);
+            }
+        } else if (level == Level.APPROXIMATE && generator instanceof WhiteNoiseGenerator white) {
+            layers.add(new Layer(new GaussianNoiseGenerator(0, WHITE_SIGMA, white.getRandomSource()), weight));
+        } else {
+            layers.add(new Layer(generator, weight));
+        }
+    }
+
+    // a weighted Gaussian is mu * w + sigma * w * g. Draws from one deterministic source share g, so their mus and
+    // sigmas add; draws from independent sources only add in distribution, the sigmas in quadrature
+    private static List<Layer> mergeGaussians(List<Layer> layers, Level level) {
+        Map<Object, List<Layer>> bySource = new LinkedHashMap<>();
+        for (Layer layer : layers) {
+            if (layer.generator instanceof GaussianNoiseGenerator gaussian) {
+                RandomSource random = gaussian.getRandomSource();
+                // a non-deterministic source draws fresh values on every call, so each layer stands alone
+                Object group = random.isDeterministic() ? random : layer;
+                bySource.computeIfAbsent(group, k -> new ArrayList<>()).add(layer);
+            }
+        }
+
+        // each merged member maps to its group's replacement if it is the first member, or to null to be dropped
+        Map<Layer, Layer> replacements = new LinkedHashMap<>();
+        boolean quadrature = level != Level.EXACT && bySource.size() > 1;
+        double totalMu = 0;
+        double totalVariance = 0;
+        for (List<Layer> group : bySource.values()) {
+            if (group.size() == 1 && !quadrature) {
+                continue;
+            }
+            double mu = 0;
+            double sigma = 0;
+            for (Layer layer : group) {
+                GaussianNoiseGenerator gaussian = (GaussianNoiseGenerator) layer.generator;
+                mu += layer.weight * gaussian.getMu();
+                sigma += layer.weight * gaussian.getSigma();
+                replacements.put(layer, null);
+            }
+            if (quadrature) {
+                totalMu += mu;
+                totalVariance += sigma * sigma;
+            } else {
+                replacements.put(group.get(0), gaussian(group.get(0), mu, sigma));
+            }
+        }
+        if (quadrature) {
+            Layer first = replacements.keySet().iterator().next();
+            replacements.put(first, gaussian(first, totalMu, Math.sqrt(totalVariance)));
+        }
+        if (replacements.isEmpty()) {
+            return layers;
+        }
+
+        List<Layer> merged = new ArrayList<>();
+        for (Layer layer : layers) {
+            if (!replacements.containsKey(layer)) {
+                merged.add(layer);
+            } else if (replacements.get(layer) != null) {
+                merged.add(replacements.get(layer));
+            }
+        }
+        return merged;
+    }
+
+    // weights are folded into mu and sigma, the merged layer keeps the first member's source
+    private static Layer gaussian(Layer first, double mu, double sigma) {
+        RandomSource random = ((GaussianNoiseGenerator) first.generator).getRandomSource();
+        return new Layer(new GaussianNoiseGenerator(mu, sigma, random), 1f);
+    }
+
+    private static final class Layer {
+        private final NoiseGenerator generator;
+        private float weight;
+
+        private Layer(NoiseGenerator generator, float weight) {
+            this.generator = generator;
+            this.weight = weight;
+        }
+    }
+}
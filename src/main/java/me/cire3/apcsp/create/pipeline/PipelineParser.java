@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2025 cire3. All Rights Reserved.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package me.cire3.apcsp.create.pipeline;
+
+import me.cire3.apcsp.create.noise.*;
+import me.cire3.apcsp.create.random.RandomSource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// parses generator pipelines such as "gaussian:mu=0,sigma=0.5@0.8;perlin:scale=1"
+// entries are separated by ';' or new lines, '#' starts a comment, and "@weight" defaults to 1
+public final class PipelineParser {
+    private PipelineParser() {
+    }
+
+    public static List<WeightedGenerator> parse(String pipeline) {
+        List<WeightedGenerator> generators = new ArrayList<>();
+        for (String line : pipeline.split("\\R")) {
+            int comment = line.indexOf('#');
+            if (comment >= 0) {
+                line = line.substring(0, comment);
+            }
+            for (String entry : line.split(";")) {
+                if (!entry.isBlank()) {
+                    generators.add(parseEntry(entry.trim()));
+                }
+            }
+        }
+        return generators;
+    }
+
+    public static List<WeightedGenerator> parse(Path config) throws IOException {
+        return parse(Files.readString(config));
+    }
+
+    public static WeightedGenerator parseEntry(String entry) {
+        float weight = 1f;
+        int at = entry.lastIndexOf('@');
+        if (at >= 0) {
+            weight = parseFloat(entry, "weight", entry.substring(at + 1));
+            entry = entry.substring(0, at).trim();
+        }
+
+        String type = entry;
+        Map<String, String> params = new HashMap<>();
+        int colon = entry.indexOf(':');
+        if (colon >= 0) {
+            type = entry.substring(0, colon).trim();
+            for (String param : entry.substring(colon + 1).split(",")) {
+                if (param.isBlank()) {
+                    continue;
+                }
+                int eq = param.indexOf('=');
+                if (eq < 0) {
+                    throw new IllegalArgumentException("Expected key=value in '" + entry + "': " + param);
+                }
+                params.put(param.substring(0, eq).trim().toLowerCase(Locale.ROOT), param.substring(eq + 1).trim());
+            }
+        }
+
+        NoiseGenerator generator = create(type.toLowerCase(Locale.ROOT), params, entry);
+        if (!params.isEmpty()) {
+            throw new IllegalArgumentException("Unknown parameters for " + type + ": " + params.keySet());
+        }
+        return new WeightedGenerator(generator, weight);
+    }
+
+    private static NoiseGenerator create(String type, Map<String, String> params, String entry) {
+        return switch (type) {
+            case "gaussian" -> new GaussianNoiseGenerator(
+                    parseDouble(entry, "mu", params.remove("mu"), 0),
+                    parseDouble(entry, "sigma", params.remove("sigma"), 1),
+                    random(params, entry));
+            case "perlin" -> new PerlinNoiseGenerator(
+                    parseFloat(entry, "scale", params.remove("scale"), 1),
+                    parseFloat(entry, "time", params.remove("time"), 0));
+            case "saltpepper", "salt-and-pepper" -> new SaltAndPepperNoiseGenerator(
+                    parseFloat(entry, "probability", params.remove("probability"), 0.2f),
+                    random(params, entry));
+            case "value" -> {
+                long size = parseLong(entry, "size", params.remove("size"), 256);
+                // the lattice wraps with a mask, so anything but a power of two skews or breaks it
+                if (size < 1 || size > 1 << 30 || Long.bitCount(size) != 1) {
+                    throw new IllegalArgumentException("size must be a positive power of two in '" + entry + "': "
+                            + size);
+                }
+                ValueNoiseGenerator value = new ValueNoiseGenerator((int) size, (int) size,
+                        parseFloat(entry, "scale", params.remove("scale"), 0.2f),
+                        random(params, entry));
+                value.setTime(parseFloat(entry, "time", params.remove("time"), 0));
+                yield value;
+            }
+            case "white" -> new WhiteNoiseGenerator(random(params, entry));
+            case "gradient" -> new GradientNoiseGenerator(
+                    parseFloat(entry, "frequency", params.remove("frequency"), 1 / 32f),
+                    parseFloat(entry, "scale", params.remove("scale"), 1));
+            case "simplex", "opensimplex2" -> new OpenSimplex2NoiseGenerator(
+                    parseFloat(entry, "frequency", params.remove("frequency"), 1 / 32f),
+                    parseFloat(entry, "scale", params.remove("scale"), 1),
+                    parseLong(entry, "seed", params.remove("seed"), 0));
+            case "fractal", "fbm" -> new FractalNoiseGenerator(
+                    (int) parseFloat(entry, "octaves", params.remove("octaves"), 5),
+                    parseFloat(entry, "lacunarity", params.remove("lacunarity"), 2),
+                    parseFloat(entry, "gain", params.remove("gain"), 0.5f),
+                    parseFloat(entry, "frequency", params.remove("frequency"), 1 / 64f),
+                    mode(params.remove("mode"), entry));
+            default -> throw new IllegalArgumentException("Unknown generator type '" + type + "' in '" + entry + "'");
+        };
+    }
+
+    private static FractalNoiseGenerator.Mode mode(String mode, String entry) {
+        if (mode == null) {
+            return FractalNoiseGenerator.Mode.FBM;
+        }
+        try {
+            return FractalNoiseGenerator.Mode.valueOf(mode.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown fractal mode '" + mode + "' in '" + entry + "'");
+        }
+    }
+
+    // "seed=<n>" for a reproducible stream, "random=secure" for the cryptographic source
+    private static RandomSource random(Map<String, String> params, String entry) {
+        String seed = params.remove("seed");
+        String mode = params.remove("random");
+        if ("secure".equalsIgnoreCase(mode)) {
+            return RandomSource.secure();
+        }
+        if (mode != null && !"seeded".equalsIgnoreCase(mode)) {
+            throw new IllegalArgumentException("Unknown random mode '" + mode + "' in '" + entry + "'");
+        }
+        if (seed == null) {
+            return RandomSource.seeded();
+        }
+        try {
+            return RandomSource.seeded(Long.parseLong(seed));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid seed in '" + entry + "': " + seed);
+        }
+    }
+
+    private static long parseLong(String entry, String name, String value, long fallback) {
+        try {
+            return value == null ? fallback : Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + name + " in '" + entry + "': " + value);
+        }
+    }
+
+    private static double parseDouble(String entry, String name, String value, double fallback) {
+        try {
+            return value == null ? fallback : Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + name + " in '" + entry + "': " + value);
+        }
+    }
+
+    private static float parseFloat(String entry, String name, String value, float fallback) {
+        return value == null ? fallback : parseFloat(entry, name, value);
+    }
+
+    private static float parseFloat(String entry, String name, String value) {
+        try {
+            return Float.parseFloat(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + name + " in '" + entry + "': " + value);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2025 cire3. All Rights Reserved.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package me.cire3.apcsp.create.pipeline;
+
+import me.cire3.apcsp.create.noise.WeightedGenerator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+// a frozen copy of a pipeline. The generators are copies nothing else references and are never mutated once the
+// snapshot exists, so one snapshot can be handed to any number of renders and read without locks while the original
+// list keeps being edited
+public final class PipelineSnapshot {
+    public static final PipelineSnapshot EMPTY = new PipelineSnapshot(List.of(), 0);
+
+    private static final AtomicLong VERSIONS = new AtomicLong();
+
+    private final List<WeightedGenerator> generators;
+    private final long version;
+
+    private PipelineSnapshot(List<WeightedGenerator> generators, long version) {
+        this.generators = generators;
+        this.version = version;
+    }
+
+    // must be called by the thread that owns the live generators, in the GUI that is the event dispatch thread
+    public static PipelineSnapshot of(List<? extends WeightedGenerator> live) {
+        List<WeightedGenerator> copies = new ArrayList<>(live.size());
+        for (WeightedGenerator generator : live) {
+            copies.add(generator.copy());
+        }
+        return new PipelineSnapshot(List.copyOf(copies), VERSIONS.incrementAndGet());
+    }
+
+    // renders only read these; calling their setters would break every render sharing the snapshot
+    public List<WeightedGenerator> getGenerators() {
+        return generators;
+    }
+
+    // later snapshots have higher versions
+    public long getVersion() {
+        return version;
+    }
+
+    public int size() {
+        return generators.size();
+    }
+
+    @Override
+    public String toString() {
+        return "PipelineSnapshot[v" + version + ", " + generators.size() + " generators]";
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2025 cire3. All Rights Reserved.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package me.cire3.apcsp.create.pipeline;
+
+import me.cire3.apcsp.create.noise.*;
+import me.cire3.apcsp.create.random.CounterRandomSource;
+import me.cire3.apcsp.create.random.RandomSource;
+import me.cire3.apcsp.create.random.SecureRandomSource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+// the canonical text of a pipeline: one PipelineParser entry per line with every parameter, the weight and the seed
+// spelled out, so equal pipelines have equal text. It is what --config reads, what the GUI saves as a preset and what
+// the result cache hashes
+public final class PipelineSpec {
+    private final List<String> entries;
+    private final boolean deterministic;
+
+    private PipelineSpec(List<String> entries, boolean deterministic) {
+        this.entries = entries;
+        this.deterministic = deterministic;
+    }
+
+    public static PipelineSpec of(List<? extends NoiseGenerator> generators) {
+        List<String> entries = new ArrayList<>(generators.size());
+        boolean deterministic = true;
+        for (NoiseGenerator generator : generators) {
+            float weight = 1f;
+            while (generator instanceof WeightedGenerator weighted) {
+                weight *= weighted.getWeight();
+                generator = weighted.getGenerator();
+            }
+            if (generator instanceof RandomizedGenerator randomized && !randomized.getRandomSource().isDeterministic()) {
+                deterministic = false;
+            }
+            entries.add(describe(generator) + "@" + weight);
+        }
+        return new PipelineSpec(List.copyOf(entries), deterministic);
+    }
+
+    // parsing and describing again fills in defaults and the seeds of unseeded entries
+    public static PipelineSpec parse(String pipeline) {
+        return of(PipelineParser.parse(pipeline));
+    }
+
+    public static PipelineSpec read(Path file) throws IOException {
+        return parse(Files.readString(file));
+    }
+
+    public void write(Path file) throws IOException {
+        Files.writeString(file, "# noise pipeline, one generator per line; usable with --config\n" + this);
+    }
+
+    // fresh generators, nothing else holds them
+    public List<WeightedGenerator> toGenerators() {
+        return PipelineParser.parse(toString());
+    }
+
+    public List<String> getEntries() {
+        return entries;
+    }
+
+    // false when any generator draws from a secure source, the same spec then renders differently every time
+    public boolean isDeterministic() {
+        return deterministic;
+    }
+
+    private static String describe(NoiseGenerator generator) {
+        if (generator instanceof GaussianNoiseGenerator g) {
+            return "gaussian:mu=" + g.getMu() + ",sigma=" + g.getSigma() + random(g);
+        } else if (generator instanceof PerlinNoiseGenerator p) {
+            return "perlin:scale=" + p.getScale() + time(p);
+        } else if (generator instanceof SaltAndPepperNoiseGenerator s) {
+            return "saltpepper:probability=" + s.getProbability() + random(s);
+        } else if (generator instanceof ValueNoiseGenerator v) {
+            return "value:size=" + v.getSize() + ",scale=" + v.getScale() + time(v) + random(v);
+        } else if (generator instanceof WhiteNoiseGenerator w) {
+            return "white:" + random(w).substring(1);
+        } else if (generator instanceof GradientNoiseGenerator g) {
+            return "gradient:frequency=" + g.getFrequency() + ",scale=" + g.getScale();
+        } else if (generator instanceof OpenSimplex2NoiseGenerator s) {
+            return "simplex:frequency=" + s.getFrequency() + ",scale=" + s.getScale() + ",seed=" + s.getSeed();
+        } else if (generator instanceof FractalNoiseGenerator f) {
+            return "fractal:octaves=" + f.getOctaves() + ",lacunarity=" + f.getLacunarity() + ",gain=" + f.getGain()
+                    + ",frequency=" + f.getFrequency() + ",mode=" + f.getMode().name().toLowerCase(Locale.ROOT);
+        }
+        throw new IllegalArgumentException("No pipeline entry for " + generator.getClass().getSimpleName());
+    }
+
+    // left out at 0 so still pipelines keep the text they had before generators could move in time
+    private static String time(AnimatedGenerator generator) {
+        return generator.getTime() == 0 ? "" : ",time=" + generator.getTime();
+    }
+
+    private static String random(RandomizedGenerator generator) {
+        RandomSource random = generator.getRandomSource();
+        if (random instanceof CounterRandomSource counter) {
+            return ",seed=" + counter.getSeed();
+        } else if (random instanceof SecureRandomSource) {
+            return ",random=secure";
+        }
+        throw new IllegalArgumentException("No pipeline entry for random source " + random);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof PipelineSpec other && other.entries.equals(entries);
+    }
+
+    @Override
+    public int hashCode() {
+        return entries.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        for (String entry : entries) {
+            text.append(entry).append('\n');
+        }
+        return text.toString();
+    }
+}
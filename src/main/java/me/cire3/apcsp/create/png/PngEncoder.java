@@ -0,0 +1,387 @@
+/*
+ * Copyright (c) 2025 cire3. All Rights Reserved.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package me.cire3.apcsp.create.png;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+// writes 8-bit RGBA PNGs. Rows are pulled top to bottom in chunks of about 128 KiB; each chunk is filtered and
+// deflated on its own worker with the previous 32 KiB of filtered bytes as its dictionary and ends on a sync flush,
+// so the chunks concatenate into one zlib stream that compresses almost as well as a serial one (the pigz scheme)
+public class PngEncoder implements AutoCloseable {
+    public static final int UNCOMPRESSED = Deflater.NO_COMPRESSION;
+    public static final int FAST = Deflater.BEST_SPEED;
+    // the level ImageIO's PNG writer uses
+    public static final int DEFAULT_LEVEL = 4;
+    public static final int BEST = Deflater.BEST_COMPRESSION;
+
+    public interface RowSource {
+        // fills argb with the packed ARGB pixels of row y; rows are requested in order
+        void read(int y, int[] argb) throws IOException;
+    }
+
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final int IHDR = 0x49484452;
+    private static final int IDAT = 0x49444154;
+    private static final int IEND = 0x49454E44;
+
+    private static final int CHUNK_BYTES = 1 << 17;
+    private static final int WINDOW = 1 << 15;
+    private static final int ADLER_BASE = 65521;
+
+    private static final int NONE = 0;
+    private static final int SUB = 1;
+    private static final int UP = 2;
+    private static final int AVERAGE = 3;
+    private static final int PAETH = 4;
+
+    private final int level;
+    private final int parallelism;
+    private final ForkJoinPool pool;
+    private final Executor executor;
+
+    public PngEncoder() {
+        this(DEFAULT_LEVEL, 1);
+    }
+
+    public PngEncoder(int level, int parallelism) {
+        if (level < UNCOMPRESSED || level > BEST) {
+            throw new IllegalArgumentException("level must be between 0 and 9: " + level);
+        }
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be at least 1: " + parallelism);
+        }
+        this.level = level;
+        this.parallelism = parallelism;
+        this.pool = parallelism > 1 ? new ForkJoinPool(parallelism) : null;
+        // a serial encoder runs every stage inline on the calling thread
+        this.executor = pool != null ? pool : Runnable::run;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public void encode(int width, int height, RowSource rows, File file) throws IOException {
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file), 1 << 16)) {
+            encode(width, height, rows, out);
+        }
+    }
+
+    public void encode(int width, int height, RowSource rows, OutputStream stream) throws IOException {
+        if (width < 1 || height < 1) {
+            throw new IllegalArgumentException("PNG images need at least one pixel: " + width + "x" + height);
+        }
+        long stride = 1 + 4L * width;
+        if (stride > Integer.MAX_VALUE - 64) {
+            throw new IllegalArgumentException("Image too wide for PNG rows: " + width);
+        }
+        int rowsPerChunk = (int) Math.max(1, Math.min(height, CHUNK_BYTES / stride));
+
+        DataOutputStream out = new DataOutputStream(stream);
+        out.write(SIGNATURE);
+        byte[] header = new byte[13];
+        putInt(header, 0, width);
+        putInt(header, 4, height);
+        header[8] = 8;
+        // truecolor with alpha, deflate, adaptive filtering, no interlace
+        header[9] = 6;
+        writeChunk(out, IHDR, header, 0, header.length);
+
+        // bounds the filtered and compressed chunks held in memory while the slowest one finishes
+        int window = 2 * parallelism + 1;
+        ArrayDeque<CompletableFuture<Deflated>> pending = new ArrayDeque<>();
+        CompletableFuture<byte[]> previous = null;
+        int[] above = null;
+        long adler = 1;
+        try {
+            for (int y0 = 0; y0 < height; y0 += rowsPerChunk) {
+                int count = Math.min(rowsPerChunk, height - y0);
+                int[] pixels = new int[count * width];
+                int[] row = new int[width];
+                for (int j = 0; j < count; j++) {
+                    rows.read(y0 + j, row);
+                    System.arraycopy(row, 0, pixels, j * width, width);
+                }
+
+                boolean first = y0 == 0;
+                boolean last = y0 + count == height;
+                int[] prior = above;
+                CompletableFuture<byte[]> filtered = CompletableFuture.supplyAsync(
+                        () -> filter(pixels, prior, width, count), executor);
+                CompletableFuture<Deflated> deflated = previous == null
+                        ? filtered.thenApplyAsync(data -> deflate(data, null, first, last), executor)
+                        : filtered.thenCombineAsync(previous, (data, dictionary) -> deflate(data, dictionary, first, last),
+                        executor);
+                pending.add(deflated);
+                previous = filtered;
+                above = Arrays.copyOfRange(pixels, (count - 1) * width, count * width);
+
+                while (pending.size() > window || last && !pending.isEmpty()) {
+                    Deflated chunk = pending.remove().join();
+                    adler = combineAdler(adler, chunk.adler, chunk.rawLength);
+                    if (last && pending.isEmpty()) {
+                        putInt(chunk.data, chunk.length - 4, (int) adler);
+                    }
+                    writeChunk(out, IDAT, chunk.data, 0, chunk.length);
+                }
+            }
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            for (CompletableFuture<Deflated> chunk : pending) {
+                chunk.cancel(false);
+            }
+        }
+
+        writeChunk(out, IEND, new byte[0], 0, 0);
+        out.flush();
+    }
+
+    // one filter byte and four RGBA bytes per pixel for every row; prior is the last row of the previous chunk
+    private byte[] filter(int[] pixels, int[] prior, int width, int count) {
+        int stride = 1 + 4 * width;
+        byte[] filtered = new byte[count * stride];
+        byte[] up = new byte[4 * width];
+        byte[] current = new byte[4 * width];
+        if (prior != null) {
+            unpack(prior, 0, width, up);
+        }
+
+        for (int j = 0; j < count; j++) {
+            unpack(pixels, j * width, width, current);
+            int type = level == UNCOMPRESSED ? NONE : choose(current, up);
+            apply(type, current, up, filtered, j * stride);
+            byte[] swap = up;
+            up = current;
+            current = swap;
+        }
+        return filtered;
+    }
+
+    private static void unpack(int[] argb, int offset, int width, byte[] rgba) {
+        for (int i = 0; i < width; i++) {
+            int pixel = argb[offset + i];
+            rgba[4 * i] = (byte) (pixel >>> 16);
+            rgba[4 * i + 1] = (byte) (pixel >>> 8);
+            rgba[4 * i + 2] = (byte) pixel;
+            rgba[4 * i + 3] = (byte) (pixel >>> 24);
+        }
+    }
+
+    // the minimum sum of absolute differences heuristic from the PNG spec, all five filters scored in one pass
+    private static int choose(byte[] current, byte[] up) {
+        long none = 0;
+        long sub = 0;
+        long upSum = 0;
+        long average = 0;
+        long paeth = 0;
+        for (int i = 0; i < current.length; i++) {
+            int x = current[i] & 0xFF;
+            int a = i >= 4 ? current[i - 4] & 0xFF : 0;
+            int b = up[i] & 0xFF;
+            int c = i >= 4 ? up[i - 4] & 0xFF : 0;
+            none += Math.abs((byte) x);
+            sub += Math.abs((byte) (x - a));
+            upSum += Math.abs((byte) (x - b));
+            average += Math.abs((byte) (x - ((a + b) >>> 1)));
+            paeth += Math.abs((byte) (x - paeth(a, b, c)));
+        }
+
+        int best = NONE;
+        long bestSum = none;
+        long[] sums = {sub, upSum, average, paeth};
+        for (int type = SUB; type <= PAETH; type++) {
+            if (sums[type - 1] < bestSum) {
+                bestSum = sums[type - 1];
+                best = type;
+            }
+        }
+        return best;
+    }
+
+    private static void apply(int type, byte[] current, byte[] up, byte[] out, int offset) {
+        out[offset++] = (byte) type;
+        switch (type) {
+            case NONE -> System.arraycopy(current, 0, out, offset, current.length);
+            case SUB -> {
+                for (int i = 0; i < current.length; i++) {
+                    out[offset + i] = (byte) (current[i] - (i >= 4 ? current[i - 4] : 0));
+                }
+            }
+            case UP -> {
+                for (int i = 0; i < current.length; i++) {
+                    out[offset + i] = (byte) (current[i] - up[i]);
+                }
+            }
+            case AVERAGE -> {
+                for (int i = 0; i < current.length; i++) {
+                    int a = i >= 4 ? current[i - 4] & 0xFF : 0;
+                    out[offset + i] = (byte) (current[i] - ((a + (up[i] & 0xFF)) >>> 1));
+                }
+            }
+            default -> {
+                for (int i = 0; i < current.length; i++) {
+                    int a = i >= 4 ? current[i - 4] & 0xFF : 0;
+                    int c = i >= 4 ? up[i - 4] & 0xFF : 0;
+                    out[offset + i] = (byte) (current[i] - paeth(a, up[i] & 0xFF, c));
+                }
+            }
+        }
+    }
+
+    private static int paeth(int a, int b, int c) {
+        int p = a + b - c;
+        int pa = Math.abs(p - a);
+        int pb = Math.abs(p - b);
+        int pc = Math.abs(p - c);
+        if (pa <= pb && pa <= pc) {
+            return a;
+        }
+        return pb <= pc ? b : c;
+    }
+
+    // raw deflate of one chunk; the first chunk gets room for the zlib header and the last for the Adler-32 trailer
+    private Deflated deflate(byte[] data, byte[] dictionary, boolean first, boolean last) {
+        Deflater deflater = new Deflater(level, true);
+        try {
+            if (level != UNCOMPRESSED) {
+                deflater.setStrategy(Deflater.FILTERED);
+            }
+            if (dictionary != null) {
+                int length = Math.min(WINDOW, dictionary.length);
+                deflater.setDictionary(dictionary, dictionary.length - length, length);
+            }
+            deflater.setInput(data);
+
+            int head = first ? 2 : 0;
+            int tail = last ? 4 : 0;
+            byte[] out = new byte[head + data.length + data.length / 1000 + 64 + tail];
+            int length = head;
+            if (last) {
+                deflater.finish();
+                while (!deflater.finished()) {
+                    if (length == out.length - tail) {
+                        out = Arrays.copyOf(out, out.length * 2);
+                    }
+                    length += deflater.deflate(out, length, out.length - tail - length);
+                }
+            } else {
+                // the first call may only apply the strategy, and a full buffer may still hold pending output, so
+                // sync flush until all input is consumed and the deflater leaves room
+                do {
+                    if (length == out.length) {
+                        out = Arrays.copyOf(out, out.length * 2);
+                    }
+                    length += deflater.deflate(out, length, out.length - length, Deflater.SYNC_FLUSH);
+                } while (length == out.length || !deflater.needsInput());
+            }
+
+            if (first) {
+                out[0] = 0x78;
+                out[1] = (byte) zlibFlags();
+            }
+            Adler32 checksum = new Adler32();
+            checksum.update(data);
+            return new Deflated(out, length + tail, (int) checksum.getValue(), data.length);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    // FLEVEL from the compression level, FCHECK so the header is a multiple of 31
+    private int zlibFlags() {
+        int flevel = level <= 1 ? 0 : level <= 5 ? 1 : level == 6 ? 2 : 3;
+        int flags = flevel << 6;
+        return flags + (31 - (0x78 << 8 | flags) % 31) % 31;
+    }
+
+    // adler32_combine from zlib: the checksum of A followed by B from the checksums of A and B and the length of B
+    private static long combineAdler(long adlerA, int adlerB, long lengthB) {
+        long remainder = lengthB % ADLER_BASE;
+        long sum1 = adlerA & 0xFFFF;
+        long sum2 = remainder * sum1 % ADLER_BASE;
+        sum1 += (adlerB & 0xFFFF) + ADLER_BASE - 1;
+        sum2 += (adlerA >>> 16 & 0xFFFF) + (adlerB >>> 16 & 0xFFFF) + ADLER_BASE - remainder;
+        sum1 %= ADLER_BASE;
+        sum2 %= ADLER_BASE;
+        return sum2 << 16 | sum1;
+    }
+
+    private static void writeChunk(DataOutputStream out, int type, byte[] data, int offset, int length)
+            throws IOException {
+        CRC32 crc = new CRC32();
+        byte[] name = new byte[4];
+        putInt(name, 0, type);
+        crc.update(name);
+        crc.update(data, offset, length);
+        out.writeInt(length);
+        out.write(name);
+        out.write(data, offset, length);
+        out.writeInt((int) crc.getValue());
+    }
+
+    private static void putInt(byte[] buffer, int offset, int value) {
+        buffer[offset] = (byte) (value >>> 24);
+        buffer[offset + 1] = (byte) (value >>> 16);
+        buffer[offset + 2] = (byte) (value >>> 8);
+        buffer[offset + 3] = (byte) value;
+    }
+
+    @Override
+    public void close() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    private static class Deflated {
+        private final byte[] data;
+        private final int length;
+        private final int adler;
+        private final int rawLength;
+
+        private Deflated(byte[] data, int length, int adler, int rawLength) {
+            this.data = data;
+            this.length = length;
+            this.adler = adler;
+            this.rawLength = rawLength;
+        }
+    }
+}
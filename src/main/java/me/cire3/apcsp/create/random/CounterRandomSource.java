@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2025 cire3. All Rights Reserved.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package me.cire3.apcsp.create.random;
+
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+
+// counter-based source: every pixel hashes its own coordinates, so results do not depend on evaluation order or threads
+public final class CounterRandomSource implements RandomSource {
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private final long seed;
+
+    public CounterRandomSource(long seed) {
+        this.seed = seed;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    @Override
+    public long bits(int x, int y) {
+        // packing is injective and the odd multiply, add and mix are bijections, so distinct pixels never share bits
+        long key = ((long) y << 32) | (x & 0xFFFFFFFFL);
+        return mix64(key * GOLDEN_GAMMA + seed);
+    }
+
+    @Override
+    public RandomSource split(long stream) {
+        return new CounterRandomSource(mix64(seed ^ mix64(stream + GOLDEN_GAMMA)));
+    }
+
+    @Override
+    public RandomGenerator sequence() {
+        return new SplittableRandom(seed);
+    }
+
+    @Override
+    public boolean isDeterministic() {
+        return true;
+    }
+
+    // SplitMix64 finalizer, the same mixer SplittableRandom uses
+    public static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof CounterRandomSource other && other.seed == seed;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(seed);
+    }
+
+    @Override
+    public String toString() {
+        return "seeded(" + seed + ")";
+    }
+}
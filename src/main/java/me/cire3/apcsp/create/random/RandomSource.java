@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2025 cire3. All Rights Reserved.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package me.cire3.apcsp.create.random;
+
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+
+public interface RandomSource {
+    // 64 random bits for the pixel at (x, y); the same coordinates always give the same bits for a deterministic source
+    long bits(int x, int y);
+
+    // an independent source for another generator or pipeline stage
+    RandomSource split(long stream);
+
+    // a sequential generator for one-off work such as building lattices
+    RandomGenerator sequence();
+
+    boolean isDeterministic();
+
+    default float nextFloat(int x, int y) {
+        return (bits(x, y) >>> 40) * 0x1.0p-24f;
+    }
+
+    default boolean nextBoolean(int x, int y) {
+        return bits(x, y) < 0;
+    }
+
+    default double nextGaussian(int x, int y) {
+        return Ziggurat.normal(bits(x, y));
+    }
+
+    // the Gaussians of pixels (x0, y) to (x0 + length - 1, y), equal to calling nextGaussian for each
+    default void nextGaussians(int x0, int y, double[] dst, int length) {
+        for (int i = 0; i < length; i++) {
+            dst[i] = Ziggurat.normal(bits(x0 + i, y));
+        }
+    }
+
+    static RandomSource seeded(long seed) {
+        return new CounterRandomSource(seed);
+    }
+
+    static RandomSource seeded() {
+        return new CounterRandomSource(new SplittableRandom().nextLong());
+    }
+
+    static RandomSource secure() {
+        return new SecureRandomSource();
+    }
+}
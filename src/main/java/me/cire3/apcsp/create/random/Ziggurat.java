@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2025 cire3. All Rights Reserved.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package me.cire3.apcsp.create.random;
+
+// Marsaglia and Tsang's ziggurat for the standard normal, driven by one 64-bit word per sample so it fits the
+// per-pixel bits of a RandomSource. About 98.8% of samples take the first branch, a table lookup, a multiply and a
+// compare. Rejections draw more words from a SplitMix64 stream started at the pixel's bits, so a pixel's value
+// still depends only on its bits
+public final class Ziggurat {
+    private static final int LAYERS = 128;
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    // start of the tail and the area of every layer for 128 layers
+    private static final double R = 3.442619855899;
+    private static final double AREA = 9.91256303526217e-3;
+
+    // X[i] is the half-width of layer i, X[0] the width a rectangle of the layer's area would need to also hold
+    // the tail, and F[i] the density at X[i]
+    private static final double[] X = new double[LAYERS + 1];
+    private static final double[] F = new double[LAYERS + 1];
+
+    static {
+        X[0] = AREA / density(R);
+        X[1] = R;
+        for (int i = 1; i < LAYERS - 1; i++) {
+            X[i + 1] = Math.sqrt(-2 * Math.log(AREA / X[i] + density(X[i])));
+        }
+        X[LAYERS] = 0;
+        for (int i = 0; i <= LAYERS; i++) {
+            F[i] = density(X[i]);
+        }
+    }
+
+    private Ziggurat() {
+    }
+
+    public static double normal(long bits) {
+        long state = bits;
+        while (true) {
+            int layer = (int) bits & (LAYERS - 1);
+            // the top 53 bits as a signed uniform in [-1, 1), disjoint from the layer bits
+            double u = (bits >> 11) * 0x1.0p-52;
+            double x = u * X[layer];
+            if (Math.abs(x) < X[layer + 1]) {
+                return x;
+            }
+
+            if (layer == 0) {
+                return tail(state, u < 0);
+            }
+
+            // wedge between the layer's rectangle and the curve
+            state += GOLDEN_GAMMA;
+            double y = F[layer] + uniform(CounterRandomSource.mix64(state)) * (F[layer + 1] - F[layer]);
+            if (y < density(x)) {
+                return x;
+            }
+            state += GOLDEN_GAMMA;
+            bits = CounterRandomSource.mix64(state);
+        }
+    }
+
+    // Marsaglia's exponential rejection for |x| > R
+    private static double tail(long state, boolean negative) {
+        double x;
+        double y;
+        do {
+            state += GOLDEN_GAMMA;
+            x = -Math.log(uniform(CounterRandomSource.mix64(state))) / R;
+            state += GOLDEN_GAMMA;
+            y = -Math.log(uniform(CounterRandomSource.mix64(state)));
+        } while (y + y < x * x);
+        return negative ? -R - x : R + x;
+    }
+
+    // (0, 1], never zero so the logs stay finite
+    private static double uniform(long bits) {
+        return ((bits >>> 11) + 1) * 0x1.0p-53;
+    }
+
+    private static double density(double x) {
+        return Math.exp(-0.5 * x * x);
+    }
+}
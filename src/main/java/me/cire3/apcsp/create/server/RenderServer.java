@@ -0,0 +1,326 @@
+/*
+ * Copyright (c) 2025 cire3. All Rights Reserved.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package me.cire3.apcsp.create.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import me.cire3.apcsp.create.Processor;
+import me.cire3.apcsp.create.RenderStats;
+import me.cire3.apcsp.create.buffer.PlaneStorage;
+import me.cire3.apcsp.create.cache.NoiseFieldCache;
+import me.cire3.apcsp.create.metrics.MetricsRegistry;
+import me.cire3.apcsp.create.noise.RandomizedGenerator;
+import me.cire3.apcsp.create.noise.WeightedGenerator;
+import me.cire3.apcsp.create.pipeline.PipelineParser;
+import me.cire3.apcsp.create.png.PngEncoder;
+
+import javax.imageio.IIOException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// a loopback HTTP front end for Processor.
+//   POST /render?pipeline=<spec>[&seed=<n>][&compression=<level>]  body: any image ImageIO reads, reply: the PNG
+//   GET  /metrics                                                   queue depth, latency percentiles, throughput
+// Connections are served on virtual threads where the JDK has them, so a slow upload only parks a cheap thread.
+// Renders run on a fixed pool behind a bounded queue; when the queue is full the request is refused with 503 at
+// once instead of piling up work the CPU cannot get to
+public class RenderServer implements AutoCloseable {
+    public static final int DEFAULT_QUEUE_CAPACITY = 16;
+    public static final long DEFAULT_MAX_UPLOAD_BYTES = 256L << 20;
+    // a refused upload is read to the end up to this much or the upload limit, whichever is more
+    private static final long MIN_DISCARD_BYTES = 64L << 20;
+
+    private final HttpServer server;
+    private final ExecutorService connections;
+    private final ThreadPoolExecutor renders;
+    private final int queueCapacity;
+    private final long maxUploadBytes;
+    private final NoiseFieldCache cache;
+    private final MetricsRegistry metrics = new MetricsRegistry();
+    private final long startNanos = System.nanoTime();
+
+    // port 0 picks a free port, see getPort()
+    public RenderServer(int port, int renderThreads, int queueCapacity, NoiseFieldCache cache) throws IOException {
+        this(port, renderThreads, queueCapacity, DEFAULT_MAX_UPLOAD_BYTES, cache);
+    }
+
+    public RenderServer(int port, int renderThreads, int queueCapacity, long maxUploadBytes, NoiseFieldCache cache)
+            throws IOException {
+        if (renderThreads < 1) {
+            throw new IllegalArgumentException("renderThreads must be at least 1: " + renderThreads);
+        }
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("queueCapacity must be at least 1: " + queueCapacity);
+        }
+        this.queueCapacity = queueCapacity;
+        this.maxUploadBytes = maxUploadBytes;
+        this.cache = cache;
+        this.connections = connectionExecutor();
+        this.renders = new ThreadPoolExecutor(renderThreads, renderThreads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), daemonThreads("Render Worker"),
+                new ThreadPoolExecutor.AbortPolicy());
+
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.setExecutor(connections);
+        server.createContext("/render", this::handleRender);
+        server.createContext("/metrics", this::handleMetrics);
+    }
+
+    // virtual threads arrived in JDK 21; this project still targets 17, so look the factory up and fall back to a
+    // cached pool of platform threads
+    private static ExecutorService connectionExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(daemonThreads("Render Connection"));
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return r -> {
+            Thread thread = new Thread(r, name + " " + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public int getQueueDepth() {
+        return renders.getQueue().size();
+    }
+
+    private void handleRender(HttpExchange exchange) throws IOException {
+        long start = System.nanoTime();
+        metrics.counter("server.requests").increment();
+        try (exchange) {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", "POST");
+                reply(exchange, 405, "POST an image to /render\n");
+                return;
+            }
+
+            // refuse before storing the upload when the queue is already full, submit below still has the final say
+            if (renders.getQueue().remainingCapacity() == 0) {
+                metrics.counter("server.rejected.busy").increment();
+                discard(exchange.getRequestBody());
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                reply(exchange, 503, "Render queue is full\n");
+                return;
+            }
+
+            Map<String, String> query = query(exchange.getRequestURI().getRawQuery());
+            List<WeightedGenerator> generators;
+            int compression;
+            try {
+                String pipeline = query.get("pipeline");
+                if (pipeline == null || pipeline.isBlank()) {
+                    throw new IllegalArgumentException("Missing pipeline parameter");
+                }
+                generators = PipelineParser.parse(pipeline);
+                if (query.containsKey("seed")) {
+                    RandomizedGenerator.seedAll(generators, Long.parseLong(query.get("seed")));
+                }
+                compression = query.containsKey("compression")
+                        ? Integer.parseInt(query.get("compression")) : PngEncoder.DEFAULT_LEVEL;
+                if (compression < PngEncoder.UNCOMPRESSED || compression > PngEncoder.BEST) {
+                    throw new IllegalArgumentException("compression must be between 0 and 9: " + compression);
+                }
+            } catch (IllegalArgumentException e) {
+                metrics.counter("server.rejected.bad_request").increment();
+                discard(exchange.getRequestBody());
+                reply(exchange, 400, e.getMessage() + "\n");
+                return;
+            }
+
+            Path input = Files.createTempFile("apcsp-request", ".img");
+            Path output = Files.createTempFile("apcsp-response", ".png");
+            try {
+                if (!receive(exchange.getRequestBody(), input)) {
+                    metrics.counter("server.rejected.too_large").increment();
+                    discard(exchange.getRequestBody());
+                    // whatever is past the discard limit is dropped with the connection
+                    exchange.getResponseHeaders().set("Connection", "close");
+                    reply(exchange, 413, "Upload larger than " + maxUploadBytes + " bytes\n");
+                    return;
+                }
+
+                long queued = System.nanoTime();
+                Future<RenderStats> job;
+                try {
+                    job = renders.submit(() -> {
+                        metrics.histogram("server.queue.wait.nanos").record(System.nanoTime() - queued);
+                        // requests already run side by side, so each render keeps to one thread
+                        return new Processor(input.toFile(), output.toFile(), generators, 1, cache,
+                                PlaneStorage.HEAP, compression).process();
+                    });
+                } catch (RejectedExecutionException e) {
+                    metrics.counter("server.rejected.busy").increment();
+                    exchange.getResponseHeaders().set("Retry-After", "1");
+                    reply(exchange, 503, "Render queue is full\n");
+                    return;
+                }
+
+                RenderStats stats;
+                try {
+                    stats = job.get();
+                } catch (InterruptedException e) {
+                    job.cancel(true);
+                    Thread.currentThread().interrupt();
+                    reply(exchange, 503, "Server shutting down\n");
+                    return;
+                } catch (ExecutionException e) {
+                    // only an upload ImageIO cannot decode is the client's fault; anything else is a server failure
+                    if (e.getCause() instanceof IIOException) {
+                        metrics.counter("server.rejected.undecodable").increment();
+                        reply(exchange, 422, "Could not decode image: " + e.getCause().getMessage() + "\n");
+                        return;
+                    }
+                    metrics.counter("server.failed").increment();
+                    System.out.println("Render failed: " + e.getCause());
+                    reply(exchange, 500, "Render failed\n");
+                    return;
+                }
+
+                exchange.getResponseHeaders().set("Content-Type", "image/png");
+                exchange.sendResponseHeaders(200, Files.size(output));
+                try (OutputStream body = exchange.getResponseBody()) {
+                    Files.copy(output, body);
+                }
+                metrics.counter("server.completed").increment();
+                metrics.counter("server.pixels").add((long) stats.getWidth() * stats.getHeight());
+                metrics.histogram("server.latency.nanos").record(System.nanoTime() - start);
+            } finally {
+                Files.deleteIfExists(input);
+                Files.deleteIfExists(output);
+            }
+        }
+    }
+
+    // false when the body is larger than the upload limit
+    private boolean receive(InputStream body, Path target) throws IOException {
+        byte[] buffer = new byte[1 << 16];
+        long total = 0;
+        try (OutputStream out = Files.newOutputStream(target)) {
+            int read;
+            while ((read = body.read(buffer)) != -1) {
+                total += read;
+                if (total > maxUploadBytes) {
+                    return false;
+                }
+                out.write(buffer, 0, read);
+            }
+        }
+        return true;
+    }
+
+    // closing an exchange with more than a little of the body unread resets the connection, and the client would lose
+    // the reply with it, so a refused upload is still read to the end (within a limit) but never stored
+    private void discard(InputStream body) throws IOException {
+        byte[] buffer = new byte[1 << 16];
+        long limit = Math.max(maxUploadBytes, MIN_DISCARD_BYTES);
+        long total = 0;
+        int read;
+        while (total <= limit && (read = body.read(buffer)) != -1) {
+            total += read;
+        }
+    }
+
+    private void handleMetrics(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", "GET");
+                reply(exchange, 405, "GET /metrics\n");
+                return;
+            }
+            double seconds = (System.nanoTime() - startNanos) / 1e9;
+            long completed = metrics.counter("server.completed").get();
+            StringBuilder out = new StringBuilder();
+            out.append(String.format("%-40s %d%n", "server.queue.depth", getQueueDepth()));
+            out.append(String.format("%-40s %d%n", "server.queue.capacity", queueCapacity));
+            out.append(String.format("%-40s %d%n", "server.renders.active", renders.getActiveCount()));
+            out.append(String.format("%-40s %.1f%n", "server.uptime.seconds", seconds));
+            out.append(String.format("%-40s %.3f%n", "server.throughput.images_per_second", completed / seconds));
+            out.append(String.format("%-40s %.3f%n", "server.throughput.megapixels_per_second",
+                    metrics.counter("server.pixels").get() / 1e6 / seconds));
+            out.append(metrics.describe());
+            // decode, render and encode timings from every Processor in this JVM
+            out.append(MetricsRegistry.GLOBAL.describe());
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+            reply(exchange, 200, out.toString());
+        }
+    }
+
+    private static void reply(HttpExchange exchange, int status, String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        if (!exchange.getResponseHeaders().containsKey("Content-Type")) {
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        }
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream body = exchange.getResponseBody()) {
+            body.write(bytes);
+        }
+    }
+
+    private static Map<String, String> query(String raw) {
+        Map<String, String> parameters = new HashMap<>();
+        if (raw == null) {
+            return parameters;
+        }
+        for (String pair : raw.split("&")) {
+            int equals = pair.indexOf('=');
+            String key = equals < 0 ? pair : pair.substring(0, equals);
+            String value = equals < 0 ? "" : pair.substring(equals + 1);
+            parameters.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return parameters;
+    }
+
+    // stops accepting connections, waits up to a second for replies in flight and stops the workers
+    @Override
+    public void close() {
+        server.stop(1);
+        renders.shutdownNow();
+        connections.shutdownNow();
+    }
+}
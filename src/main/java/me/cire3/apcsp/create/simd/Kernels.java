@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2025 cire3. All Rights Reserved.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package me.cire3.apcsp.create.simd;
+
+// per-row float work shared by the generators and the compositor; implementations must give bit-identical results
+public interface Kernels {
+    // applies noise[noiseOffset + i] to argb[i] in place for i < length
+    void composite(float[] noise, int noiseOffset, int[] argb, int length);
+
+    // finishes a PerlinNoiseGenerator row from fractional x offsets and the eight corner gradients
+    void perlinRow(LatticeRow row, int length, float v, float scale, float weight, float[] dst, int offset);
+
+    // finishes a ValueNoiseGenerator row from fractional x offsets and the four corner values
+    void valueRow(LatticeRow row, int length, float sy, float weight, float[] dst, int offset);
+
+    boolean isVectorized();
+
+    static Kernels get() {
+        return Holder.INSTANCE;
+    }
+
+    final class Holder {
+        private static final Kernels INSTANCE = select();
+
+        private Holder() {
+        }
+
+        private static Kernels select() {
+            if (!Boolean.parseBoolean(System.getProperty("apcsp.simd", "true"))
+                    || ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+                return new ScalarKernels();
+            }
+            try {
+                // loaded reflectively so the vector classes are never linked when the module is not enabled
+                return (Kernels) Class.forName("me.cire3.apcsp.create.simd.VectorKernels")
+                        .getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                return new ScalarKernels();
+            }
+        }
+    }
+}
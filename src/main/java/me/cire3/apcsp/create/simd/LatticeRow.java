@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2025 cire3. All Rights Reserved.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package me.cire3.apcsp.create.simd;
+
+// per-thread scratch planes for one row of lattice evaluation
+public final class LatticeRow {
+    public static final int PERLIN_CORNERS = 8;
+    public static final int VALUE_CORNERS = 4;
+
+    private static final ThreadLocal<LatticeRow> LOCAL = ThreadLocal.withInitial(LatticeRow::new);
+
+    public float[] fraction = new float[0];
+    public final float[][] corners = new float[PERLIN_CORNERS][0];
+
+    private LatticeRow() {
+    }
+
+    public static LatticeRow local(int length) {
+        LatticeRow row = LOCAL.get();
+        if (row.fraction.length < length) {
+            row.fraction = new float[length];
+            for (int i = 0; i < row.corners.length; i++) {
+                row.corners[i] = new float[length];
+            }
+        }
+        return row;
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2025 cire3. All Rights Reserved.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package me.cire3.apcsp.create.simd;
+
+import static me.cire3.apcsp.create.MathUtils.clamp;
+
+public class ScalarKernels implements Kernels {
+    @Override
+    public void composite(float[] noise, int noiseOffset, int[] argb, int length) {
+        for (int i = 0; i < length; i++) {
+            argb[i] = applyNoise(noise[noiseOffset + i], argb[i]);
+        }
+    }
+
+    @Override
+    public void perlinRow(LatticeRow row, int length, float v, float scale, float weight, float[] dst, int offset) {
+        float[] fraction = row.fraction;
+        float[][] g = row.corners;
+        for (int i = 0; i < length; i++) {
+            dst[offset + i] += weight * perlin(fquint(fraction[i]), v, scale,
+                    g[0][i], g[1][i], g[2][i], g[3][i], g[4][i], g[5][i], g[6][i], g[7][i]);
+        }
+    }
+
+    @Override
+    public void valueRow(LatticeRow row, int length, float sy, float weight, float[] dst, int offset) {
+        float[] fraction = row.fraction;
+        float[][] c = row.corners;
+        for (int i = 0; i < length; i++) {
+            dst[offset + i] += weight * value(ss(fraction[i]), sy, c[0][i], c[1][i], c[2][i], c[3][i]);
+        }
+    }
+
+    @Override
+    public boolean isVectorized() {
+        return false;
+    }
+
+    public static int applyNoise(float noise, int rgba) {
+        int a = (rgba >>> 24) & 0xFF;
+        int r = (rgba >>> 16) & 0xFF;
+        int g = (rgba >>> 8)  & 0xFF;
+        int b =  rgba         & 0xFF;
+
+        float mul = 1f + noise * 0.10f;
+        float add = noise * 20f;
+
+        r = (int) clamp((int) (r * mul + add), 0, 255);
+        g = (int) clamp((int) (g * mul + add), 0, 255);
+        b = (int) clamp((int) (b * mul + add), 0, 255);
+
+        return (a << 24) | (r << 16) | (g << 8) | b;
+    }
+
+    // g0..g3 are the z = 0 layer gradients (AA, BA, AB, BB) and g4..g7 the z = -1 layer
+    public static float perlin(float u, float v, float scale,
+                               float g0, float g1, float g2, float g3, float g4, float g5, float g6, float g7) {
+        return clamp(interpolate(
+                0,
+                interpolate(v, interpolate(u, g0, g1), interpolate(u, g2, g3)),
+                interpolate(v, interpolate(u, g4, g5), interpolate(u, g6, g7))
+        ) * scale, -3, 3);
+    }
+
+    public static float value(float sx, float sy, float c1, float c2, float c3, float c4) {
+        float ix0 = interpolate(c1, c2, sx);
+        float iy0 = interpolate(c3, c4, sy);
+
+        return clamp(interpolate(ix0, iy0, sy), -2, 2);
+    }
+
+    public static float interpolate(float a, float b, float partial) {
+        return b * partial + a * (1 - partial);
+    }
+
+    public static float fquint(float frag) {
+        return frag * frag * frag * (frag * (frag * 6 - 15) + 10);
+    }
+
+    public static float ss(float frag) {
+        return frag * frag * (3 - 2 * frag);
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2025 cire3. All Rights Reserved.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package me.cire3.apcsp.create.simd;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+// only loaded through Kernels.get() when jdk.incubator.vector is in the boot layer; every lane performs the same
+// float operations in the same order as ScalarKernels, with no fused multiply-adds, so results are bit-identical
+final class VectorKernels implements Kernels {
+    private static final VectorSpecies<Float> FLOATS = FloatVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+
+    VectorKernels() {
+        if (FLOATS.length() != INTS.length()) {
+            throw new LinkageError("float and int species differ in length");
+        }
+    }
+
+    @Override
+    public void composite(float[] noise, int noiseOffset, int[] argb, int length) {
+        int i = 0;
+        for (int upper = FLOATS.loopBound(length); i < upper; i += FLOATS.length()) {
+            FloatVector n = FloatVector.fromArray(FLOATS, noise, noiseOffset + i);
+            FloatVector mul = n.mul(0.10f).add(1f);
+            FloatVector add = n.mul(20f);
+
+            IntVector px = IntVector.fromArray(INTS, argb, i);
+            IntVector r = channel(px, 16, mul, add);
+            IntVector g = channel(px, 8, mul, add);
+            IntVector b = channel(px, 0, mul, add);
+
+            px.and(0xFF000000)
+                    .or(r.lanewise(VectorOperators.LSHL, 16))
+                    .or(g.lanewise(VectorOperators.LSHL, 8))
+                    .or(b)
+                    .intoArray(argb, i);
+        }
+        for (; i < length; i++) {
+            argb[i] = ScalarKernels.applyNoise(noise[noiseOffset + i], argb[i]);
+        }
+    }
+
+    private static IntVector channel(IntVector px, int shift, FloatVector mul, FloatVector add) {
+        IntVector c = px.lanewise(VectorOperators.LSHR, shift).and(0xFF);
+        FloatVector f = (FloatVector) c.convert(VectorOperators.I2F, 0);
+        // clamping in float first keeps the conversion in range; the int clamp then maps NaN lanes to 0 as the cast does
+        IntVector scaled = (IntVector) f.mul(mul).add(add).min(255f).max(0f).convert(VectorOperators.F2I, 0);
+        return scaled.max(0).min(255);
+    }
+
+    @Override
+    public void perlinRow(LatticeRow row, int length, float v, float scale, float weight, float[] dst, int offset) {
+        float[] fraction = row.fraction;
+        float[][] g = row.corners;
+        FloatVector vv = FloatVector.broadcast(FLOATS, v);
+        FloatVector zero = FloatVector.zero(FLOATS);
+
+        int i = 0;
+        for (int upper = FLOATS.loopBound(length); i < upper; i += FLOATS.length()) {
+            FloatVector u = fquint(FloatVector.fromArray(FLOATS, fraction, i));
+
+            FloatVector layer0 = interpolate(vv,
+                    interpolate(u, FloatVector.fromArray(FLOATS, g[0], i), FloatVector.fromArray(FLOATS, g[1], i)),
+                    interpolate(u, FloatVector.fromArray(FLOATS, g[2], i), FloatVector.fromArray(FLOATS, g[3], i)));
+            FloatVector layer1 = interpolate(vv,
+                    interpolate(u, FloatVector.fromArray(FLOATS, g[4], i), FloatVector.fromArray(FLOATS, g[5], i)),
+                    interpolate(u, FloatVector.fromArray(FLOATS, g[6], i), FloatVector.fromArray(FLOATS, g[7], i)));
+
+            FloatVector value = interpolate(zero, layer0, layer1).mul(scale).min(3f).max(-3f);
+            FloatVector.fromArray(FLOATS, dst, offset + i).add(value.mul(weight)).intoArray(dst, offset + i);
+        }
+        for (; i < length; i++) {
+            dst[offset + i] += weight * ScalarKernels.perlin(ScalarKernels.fquint(fraction[i]), v, scale,
+                    g[0][i], g[1][i], g[2][i], g[3][i], g[4][i], g[5][i], g[6][i], g[7][i]);
+        }
+    }
+
+    @Override
+    public void valueRow(LatticeRow row, int length, float sy, float weight, float[] dst, int offset) {
+        float[] fraction = row.fraction;
+        float[][] c = row.corners;
+        FloatVector vy = FloatVector.broadcast(FLOATS, sy);
+
+        int i = 0;
+        for (int upper = FLOATS.loopBound(length); i < upper; i += FLOATS.length()) {
+            FloatVector sx = ss(FloatVector.fromArray(FLOATS, fraction, i));
+
+            FloatVector ix0 = interpolate(FloatVector.fromArray(FLOATS, c[0], i), FloatVector.fromArray(FLOATS, c[1], i), sx);
+            FloatVector iy0 = interpolate(FloatVector.fromArray(FLOATS, c[2], i), FloatVector.fromArray(FLOATS, c[3], i), vy);
+
+            FloatVector value = interpolate(ix0, iy0, vy).min(2f).max(-2f);
+            FloatVector.fromArray(FLOATS, dst, offset + i).add(value.mul(weight)).intoArray(dst, offset + i);
+        }
+        for (; i < length; i++) {
+            dst[offset + i] += weight * ScalarKernels.value(ScalarKernels.ss(fraction[i]), sy,
+                    c[0][i], c[1][i], c[2][i], c[3][i]);
+        }
+    }
+
+    @Override
+    public boolean isVectorized() {
+        return true;
+    }
+
+    private static FloatVector interpolate(FloatVector a, FloatVector b, FloatVector partial) {
+        return b.mul(partial).add(a.mul(FloatVector.broadcast(FLOATS, 1f).sub(partial)));
+    }
+
+    private static FloatVector fquint(FloatVector frag) {
+        return frag.mul(frag).mul(frag).mul(frag.mul(frag.mul(6f).sub(15f)).add(10f));
+    }
+
+    private static FloatVector ss(FloatVector frag) {
+        return frag.mul(frag).mul(FloatVector.broadcast(FLOATS, 3f).sub(frag.mul(2f)));
+    }
+}
@@ -0,0 +1,362 @@
+/*
+ * Copyright (c) 2025 cire3. All Rights Reserved.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package me.cire3.apcsp.create.view;
+
+import me.cire3.apcsp.create.Main;
+
+import javax.imageio.ImageIO;
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// shows an image and its noised output on top of each other with a draggable split: before on the left, after on
+// the right. The wheel zooms around the cursor, dragging pans and double-clicking fits the image again. Tiles come
+// from a TilePyramid per image and are kept in VolatileImages, so a repaint only blits from video memory; tiles that
+// are still being built are stood in for by the nearest coarser level and repainted alone once they arrive
+public class ComparisonCanvas extends JComponent implements AutoCloseable {
+    private static final double MAX_SCALE = 32;
+    private static final double ZOOM_STEP = 1.25;
+    private static final int SPLIT_GRAB = 6;
+    // 384 tiles of 256x256 ARGB is 96 MiB of video memory
+    private static final int MAX_VOLATILE_TILES = 384;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(
+            Math.max(1, Runtime.getRuntime().availableProcessors() - 1), r -> {
+                Thread thread = new Thread(r, "Tile Pyramid");
+                thread.setDaemon(true);
+                return thread;
+            });
+    private final Map<Long, VolatileImage> volatiles = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, VolatileImage> eldest) {
+            if (size() > MAX_VOLATILE_TILES) {
+                eldest.getValue().flush();
+                return true;
+            }
+            return false;
+        }
+    };
+
+    // EDT only
+    private TilePyramid before;
+    private TilePyramid after;
+    private String status = "Loading images";
+    // screen pixels per image pixel, and the screen position of the image origin
+    private double scale = 1;
+    private double originX;
+    private double originY;
+    private double split = 0.5;
+    private boolean fitted;
+
+    public ComparisonCanvas() {
+        setPreferredSize(new Dimension(960, 640));
+        setOpaque(true);
+        setBackground(new Color(40, 40, 40));
+
+        MouseAdapter mouse = new MouseAdapter() {
+            private Point last;
+            private boolean splitting;
+
+            @Override
+            public void mousePressed(MouseEvent e) {
+                last = e.getPoint();
+                splitting = Math.abs(e.getX() - splitX()) <= SPLIT_GRAB;
+            }
+
+            @Override
+            public void mouseDragged(MouseEvent e) {
+                if (last == null) {
+                    return;
+                }
+                if (splitting) {
+                    int previous = splitX();
+                    split = Math.max(0, Math.min(1, (double) e.getX() / Math.max(1, getWidth())));
+                    // only the strip the divider swept over changes
+                    int current = splitX();
+                    repaint(Math.min(previous, current) - SPLIT_GRAB, 0,
+                            Math.abs(current - previous) + 2 * SPLIT_GRAB + 1, getHeight());
+                } else {
+                    originX += e.getX() - last.x;
+                    originY += e.getY() - last.y;
+                    repaint();
+                }
+                last = e.getPoint();
+            }
+
+            @Override
+            public void mouseReleased(MouseEvent e) {
+                last = null;
+            }
+
+            @Override
+            public void mouseMoved(MouseEvent e) {
+                setCursor(Cursor.getPredefinedCursor(Math.abs(e.getX() - splitX()) <= SPLIT_GRAB
+                        ? Cursor.E_RESIZE_CURSOR : Cursor.MOVE_CURSOR));
+            }
+
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (e.getClickCount() == 2) {
+                    fit();
+                }
+            }
+
+            @Override
+            public void mouseWheelMoved(MouseWheelEvent e) {
+                zoom(Math.pow(ZOOM_STEP, -e.getPreciseWheelRotation()), e.getX(), e.getY());
+            }
+        };
+        addMouseListener(mouse);
+        addMouseMotionListener(mouse);
+        addMouseWheelListener(mouse);
+    }
+
+    // decodes both files in the background; either may be null to show a single image
+    public void load(File beforeFile, File afterFile) {
+        executor.execute(() -> {
+            try {
+                BufferedImage beforeImage = read(beforeFile);
+                BufferedImage afterImage = read(afterFile);
+                SwingUtilities.invokeLater(() -> setImages(beforeImage, afterImage));
+            } catch (IOException | RuntimeException e) {
+                System.out.println("Error loading comparison: " + e);
+                SwingUtilities.invokeLater(() -> {
+                    status = "Could not load images: " + e.getMessage();
+                    repaint();
+                });
+            }
+        });
+    }
+
+    private static BufferedImage read(File file) throws IOException {
+        if (file == null) {
+            return null;
+        }
+        BufferedImage image = ImageIO.read(file);
+        if (image == null) {
+            throw new IOException("Unsupported image format: " + file);
+        }
+        return image;
+    }
+
+    public void setImages(BufferedImage beforeImage, BufferedImage afterImage) {
+        flushVolatiles();
+        TilePyramid.Listener listener = (pyramid, level, tileX, tileY) ->
+                SwingUtilities.invokeLater(() -> repaint(screenBounds(pyramid, level, tileX, tileY)));
+        before = beforeImage != null ? new TilePyramid(beforeImage, executor, listener) : null;
+        after = afterImage != null ? new TilePyramid(afterImage, executor, listener) : null;
+        fitted = false;
+        repaint();
+    }
+
+    public void fit() {
+        TilePyramid reference = reference();
+        if (reference == null || getWidth() == 0 || getHeight() == 0) {
+            return;
+        }
+        scale = Math.min((double) getWidth() / reference.getWidth(), (double) getHeight() / reference.getHeight());
+        originX = (getWidth() - reference.getWidth() * scale) / 2;
+        originY = (getHeight() - reference.getHeight() * scale) / 2;
+        fitted = true;
+        repaint();
+    }
+
+    // keeps the image point under (x, y) in place
+    public void zoom(double factor, int x, int y) {
+        TilePyramid reference = reference();
+        if (reference == null) {
+            return;
+        }
+        double minScale = Math.min(1, 0.25 * Math.min((double) getWidth() / reference.getWidth(),
+                (double) getHeight() / reference.getHeight()));
+        double next = Math.max(minScale, Math.min(MAX_SCALE, scale * factor));
+        originX = x - (x - originX) * next / scale;
+        originY = y - (y - originY) * next / scale;
+        scale = next;
+        repaint();
+    }
+
+    private TilePyramid reference() {
+        return before != null ? before : after;
+    }
+
+    private int splitX() {
+        if (before == null || after == null) {
+            return before == null ? 0 : getWidth();
+        }
+        return (int) Math.round(split * getWidth());
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        Graphics2D g2 = (Graphics2D) g.create();
+        g2.setColor(getBackground());
+        Rectangle clip = g2.getClipBounds() != null ? g2.getClipBounds() : new Rectangle(getSize());
+        g2.fill(clip);
+
+        if (reference() == null) {
+            drawLabel(g2, status, getWidth() / 2, getHeight() / 2, 0.5f);
+            g2.dispose();
+            return;
+        }
+        if (!fitted) {
+            fit();
+        }
+
+        int splitX = splitX();
+        paintPyramid(g2, before, 0, clip.intersection(new Rectangle(0, 0, splitX, getHeight())));
+        paintPyramid(g2, after, 1, clip.intersection(new Rectangle(splitX, 0, getWidth() - splitX, getHeight())));
+
+        if (before != null && after != null) {
+            g2.setColor(Color.WHITE);
+            g2.fillRect(splitX - 1, 0, 2, getHeight());
+            drawLabel(g2, "Before", splitX - 8, 20, 1f);
+            drawLabel(g2, "After", splitX + 8, 20, 0f);
+        }
+        g2.dispose();
+    }
+
+    private void paintPyramid(Graphics2D g, TilePyramid pyramid, int side, Rectangle area) {
+        if (pyramid == null || area.isEmpty()) {
+            return;
+        }
+        Graphics2D clipped = (Graphics2D) g.create();
+        clipped.clip(area);
+
+        int level = pyramid.levelFor(scale);
+        double tileSpan = (double) TilePyramid.TILE_SIZE * (1 << level) * scale;
+        int firstX = Math.max(0, (int) Math.floor((area.x - originX) / tileSpan));
+        int firstY = Math.max(0, (int) Math.floor((area.y - originY) / tileSpan));
+        int lastX = Math.min(pyramid.tilesX(level) - 1, (int) Math.floor((area.x + area.width - originX) / tileSpan));
+        int lastY = Math.min(pyramid.tilesY(level) - 1, (int) Math.floor((area.y + area.height - originY) / tileSpan));
+
+        // level pixels land on fewer than one screen pixel only below level 0, there the pixels should stay sharp
+        clipped.setRenderingHint(RenderingHints.KEY_INTERPOLATION, scale * (1 << level) > 1
+                ? RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR : RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        for (int tileY = firstY; tileY <= lastY; tileY++) {
+            for (int tileX = firstX; tileX <= lastX; tileX++) {
+                Rectangle bounds = screenBounds(pyramid, level, tileX, tileY);
+                BufferedImage tile = pyramid.getTile(level, tileX, tileY);
+                if (tile != null) {
+                    drawTile(clipped, side, level, tileX, tileY, tile, bounds);
+                } else {
+                    drawStandIn(clipped, pyramid, level, tileX, tileY, bounds);
+                }
+            }
+        }
+        clipped.dispose();
+    }
+
+    private void drawTile(Graphics2D g, int side, int level, int tileX, int tileY, BufferedImage tile, Rectangle bounds) {
+        GraphicsConfiguration config = getGraphicsConfiguration();
+        if (config == null) {
+            g.drawImage(tile, bounds.x, bounds.y, bounds.width, bounds.height, null);
+            return;
+        }
+
+        long key = (long) side << 62 | (long) level << 56 | (long) tileY << 28 | tileX;
+        VolatileImage image = volatiles.get(key);
+        int state = image == null ? VolatileImage.IMAGE_INCOMPATIBLE : image.validate(config);
+        if (state == VolatileImage.IMAGE_INCOMPATIBLE) {
+            if (image != null) {
+                image.flush();
+            }
+            image = config.createCompatibleVolatileImage(tile.getWidth(), tile.getHeight(), Transparency.TRANSLUCENT);
+            volatiles.put(key, image);
+            state = VolatileImage.IMAGE_RESTORED;
+        }
+        if (state == VolatileImage.IMAGE_RESTORED) {
+            Graphics2D target = image.createGraphics();
+            target.setComposite(AlphaComposite.Src);
+            target.drawImage(tile, 0, 0, null);
+            target.dispose();
+        }
+
+        g.drawImage(image, bounds.x, bounds.y, bounds.width, bounds.height, null);
+        if (image.contentsLost()) {
+            // video memory was reclaimed mid-frame, the next paint restores the tile
+            repaint(bounds);
+        }
+    }
+
+    // the matching part of the nearest coarser tile that is already built, stretched over the missing tile
+    private void drawStandIn(Graphics2D g, TilePyramid pyramid, int level, int tileX, int tileY, Rectangle bounds) {
+        for (int coarse = level + 1; coarse < pyramid.getLevels(); coarse++) {
+            int shift = coarse - level;
+            BufferedImage tile = pyramid.peekTile(coarse, tileX >> shift, tileY >> shift);
+            if (tile == null) {
+                continue;
+            }
+            int sx = (tileX & ((1 << shift) - 1)) * TilePyramid.TILE_SIZE >> shift;
+            int sy = (tileY & ((1 << shift) - 1)) * TilePyramid.TILE_SIZE >> shift;
+            int width = Math.min(TilePyramid.TILE_SIZE, pyramid.levelWidth(level) - tileX * TilePyramid.TILE_SIZE);
+            int height = Math.min(TilePyramid.TILE_SIZE, pyramid.levelHeight(level) - tileY * TilePyramid.TILE_SIZE);
+            int sw = Math.max(1, Math.min(tile.getWidth() - sx, (width + (1 << shift) - 1) >> shift));
+            int sh = Math.max(1, Math.min(tile.getHeight() - sy, (height + (1 << shift) - 1) >> shift));
+            g.drawImage(tile, bounds.x, bounds.y, bounds.x + bounds.width, bounds.y + bounds.height,
+                    sx, sy, sx + sw, sy + sh, null);
+            return;
+        }
+    }
+
+    // edges are rounded from image coordinates so neighbouring tiles always meet without gaps
+    private Rectangle screenBounds(TilePyramid pyramid, int level, int tileX, int tileY) {
+        int span = TilePyramid.TILE_SIZE << level;
+        int x0 = tileX * span;
+        int y0 = tileY * span;
+        int x1 = Math.min(pyramid.getWidth(), x0 + span);
+        int y1 = Math.min(pyramid.getHeight(), y0 + span);
+        int left = (int) Math.round(originX + x0 * scale);
+        int top = (int) Math.round(originY + y0 * scale);
+        return new Rectangle(left, top, (int) Math.round(originX + x1 * scale) - left,
+                (int) Math.round(originY + y1 * scale) - top);
+    }
+
+    // anchor is the fraction of the label that sits left of x
+    private static void drawLabel(Graphics2D g, String text, int x, int y, float anchor) {
+        g.setFont(Main.NUNITO_FONT_12);
+        FontMetrics metrics = g.getFontMetrics();
+        int width = metrics.stringWidth(text);
+        int left = x - Math.round(width * anchor);
+        g.setColor(new Color(0, 0, 0, 160));
+        g.fillRect(left - 4, y - metrics.getAscent(), width + 8, metrics.getHeight());
+        g.setColor(Color.WHITE);
+        g.drawString(text, left, y);
+    }
+
+    private void flushVolatiles() {
+        for (VolatileImage image : volatiles.values()) {
+            image.flush();
+        }
+        volatiles.clear();
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        flushVolatiles();
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) 2025 cire3. All Rights Reserved.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package me.cire3.apcsp.create.view;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+// a mipmap of an image cut into square tiles. Level 0 tiles are views into the image, every coarser tile is the 2x2
+// box filter of the four tiles below it and is built on the executor the first time it is asked for
+public class TilePyramid {
+    public static final int TILE_SIZE = 256;
+
+    public interface Listener {
+        // called on a worker thread once a requested tile can be fetched with peekTile
+        void tileReady(TilePyramid pyramid, int level, int tileX, int tileY);
+    }
+
+    private final BufferedImage image;
+    private final int levels;
+    private final Executor executor;
+    private final Listener listener;
+    private final Map<Long, BufferedImage> tiles = new ConcurrentHashMap<>();
+    private final Set<Long> scheduled = ConcurrentHashMap.newKeySet();
+
+    public TilePyramid(BufferedImage image, Executor executor, Listener listener) {
+        this.image = image;
+        this.executor = executor;
+        this.listener = listener;
+        int levels = 1;
+        while (Math.max(levelWidth(levels - 1), levelHeight(levels - 1)) > TILE_SIZE) {
+            levels++;
+        }
+        this.levels = levels;
+    }
+
+    public int getWidth() {
+        return image.getWidth();
+    }
+
+    public int getHeight() {
+        return image.getHeight();
+    }
+
+    // the coarsest level is a single tile
+    public int getLevels() {
+        return levels;
+    }
+
+    public int levelWidth(int level) {
+        return (image.getWidth() + (1 << level) - 1) >> level;
+    }
+
+    public int levelHeight(int level) {
+        return (image.getHeight() + (1 << level) - 1) >> level;
+    }
+
+    public int tilesX(int level) {
+        return (levelWidth(level) + TILE_SIZE - 1) / TILE_SIZE;
+    }
+
+    public int tilesY(int level) {
+        return (levelHeight(level) + TILE_SIZE - 1) / TILE_SIZE;
+    }
+
+    // the finest level that still has at least one level pixel per screen pixel at this many screen pixels per
+    // image pixel, so drawing never magnifies a downsampled level
+    public int levelFor(double scale) {
+        int level = 0;
+        while (level + 1 < levels && scale * (1 << (level + 1)) <= 1.0) {
+            level++;
+        }
+        return level;
+    }
+
+    // the tile if it is ready, otherwise null after scheduling it once
+    public BufferedImage getTile(int level, int tileX, int tileY) {
+        BufferedImage tile = peekTile(level, tileX, tileY);
+        if (tile == null) {
+            long key = key(level, tileX, tileY);
+            if (scheduled.add(key)) {
+                executor.execute(() -> {
+                    try {
+                        build(level, tileX, tileY);
+                        listener.tileReady(this, level, tileX, tileY);
+                    } catch (RuntimeException e) {
+                        System.out.println("Error building tile: " + e);
+                    } finally {
+                        scheduled.remove(key);
+                    }
+                });
+            }
+        }
+        return tile;
+    }
+
+    public BufferedImage peekTile(int level, int tileX, int tileY) {
+        if (level == 0) {
+            return build(0, tileX, tileY);
+        }
+        return tiles.get(key(level, tileX, tileY));
+    }
+
+    private BufferedImage build(int level, int tileX, int tileY) {
+        long key = key(level, tileX, tileY);
+        BufferedImage tile = tiles.get(key);
+        if (tile != null) {
+            return tile;
+        }
+
+        int x0 = tileX * TILE_SIZE;
+        int y0 = tileY * TILE_SIZE;
+        int width = Math.min(TILE_SIZE, levelWidth(level) - x0);
+        int height = Math.min(TILE_SIZE, levelHeight(level) - y0);
+        if (level == 0) {
+            tile = image.getSubimage(x0, y0, width, height);
+        } else {
+            tile = downsample(level, tileX, tileY, width, height);
+        }
+        BufferedImage raced = tiles.putIfAbsent(key, tile);
+        return raced != null ? raced : tile;
+    }
+
+    // gathers the up to 2x2 child tiles into one region and averages every 2x2 block, edge pixels are repeated
+    // where the child level has an odd size
+    private BufferedImage downsample(int level, int tileX, int tileY, int width, int height) {
+        int child = level - 1;
+        int regionWidth = Math.min(2 * width, levelWidth(child) - 2 * tileX * TILE_SIZE);
+        int regionHeight = Math.min(2 * height, levelHeight(child) - 2 * tileY * TILE_SIZE);
+        int[] region = new int[regionWidth * regionHeight];
+        for (int dy = 0; dy < 2; dy++) {
+            for (int dx = 0; dx < 2; dx++) {
+                int childX = 2 * tileX + dx;
+                int childY = 2 * tileY + dy;
+                if (childX < tilesX(child) && childY < tilesY(child)) {
+                    copy(build(child, childX, childY), region, regionWidth, dx * TILE_SIZE, dy * TILE_SIZE);
+                }
+            }
+        }
+
+        BufferedImage tile = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        int[] pixels = ((DataBufferInt) tile.getRaster().getDataBuffer()).getData();
+        for (int y = 0; y < height; y++) {
+            int top = 2 * y * regionWidth;
+            int bottom = Math.min(2 * y + 1, regionHeight - 1) * regionWidth;
+            for (int x = 0; x < width; x++) {
+                int left = 2 * x;
+                int right = Math.min(2 * x + 1, regionWidth - 1);
+                pixels[y * width + x] = average(region[top + left], region[top + right],
+                        region[bottom + left], region[bottom + right]);
+            }
+        }
+        return tile;
+    }
+
+    private static void copy(BufferedImage tile, int[] region, int regionWidth, int x0, int y0) {
+        int width = tile.getWidth();
+        int height = tile.getHeight();
+        if (tile.getType() == BufferedImage.TYPE_INT_ARGB && tile.getRaster().getDataBuffer() instanceof DataBufferInt ints
+                && ints.getData().length == width * height) {
+            int[] pixels = ints.getData();
+            for (int y = 0; y < height; y++) {
+                System.arraycopy(pixels, y * width, region, (y0 + y) * regionWidth + x0, width);
+            }
+        } else {
+            tile.getRGB(0, 0, width, height, region, y0 * regionWidth + x0, regionWidth);
+        }
+    }
+
+    private static int average(int a, int b, int c, int d) {
+        int result = 0;
+        for (int shift = 0; shift < 32; shift += 8) {
+            int sum = (a >>> shift & 0xFF) + (b >>> shift & 0xFF) + (c >>> shift & 0xFF) + (d >>> shift & 0xFF);
+            result |= (sum + 2) >> 2 << shift;
+        }
+        return result;
+    }
+
+    private static long key(int level, int tileX, int tileY) {
+        return (long) level << 56 | (long) tileY << 28 | tileX;
+    }
+}
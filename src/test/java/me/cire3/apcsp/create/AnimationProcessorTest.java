@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2025 cire3. All Rights Reserved.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package me.cire3.apcsp.create;
+
+import me.cire3.apcsp.create.noise.WeightedGenerator;
+import me.cire3.apcsp.create.pipeline.PipelineParser;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AnimationProcessorTest {
+    private static final String PIPELINE = "perlin:scale=1@0.6;value:scale=0.1,seed=2@0.5;gaussian:sigma=0.2,seed=3@0.3";
+
+    private Path directory;
+
+    @BeforeEach
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("animation");
+    }
+
+    @AfterEach
+    public void deleteDirectory() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Test
+    public void firstFrameMatchesStillRender() throws IOException {
+        // the same picture twice, so any difference between the frames comes from the pipeline moving
+        File frames = directory.resolve("frames").toFile();
+        assertTrue(frames.mkdir());
+        BufferedImage input = image(80, 56);
+        ImageIO.write(input, "png", new File(frames, "frame1.png"));
+        ImageIO.write(input, "png", new File(frames, "frame2.png"));
+
+        List<WeightedGenerator> generators = PipelineParser.parse(PIPELINE);
+        File animated = directory.resolve("animated").toFile();
+        new AnimationProcessor(frames, animated, generators, 2).process();
+        File still = directory.resolve("still.png").toFile();
+        new Processor(new File(frames, "frame1.png"), still, generators, 2).process();
+
+        int[] expected = pixels(still);
+        assertArrayEquals(expected, pixels(new File(animated, "frame1.png")));
+        assertFalse(Arrays.equals(expected, pixels(new File(animated, "frame2.png"))),
+                "second frame is identical to the first");
+    }
+
+    private static int[] pixels(File file) throws IOException {
+        BufferedImage image = ImageIO.read(file);
+        assertEquals(80, image.getWidth(), file.getName());
+        assertEquals(56, image.getHeight(), file.getName());
+        return image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+    }
+
+    private static BufferedImage image(int width, int height) {
+        SplittableRandom random = new SplittableRandom(25);
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, 0xFF000000 | random.nextInt(1 << 24));
+            }
+        }
+        return image;
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright (c) 2025 cire3. All Rights Reserved.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package me.cire3.apcsp.create.cache;
+
+import me.cire3.apcsp.create.noise.WeightedGenerator;
+import me.cire3.apcsp.create.pipeline.PipelineParser;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ResultCacheTest {
+    private static final List<WeightedGenerator> PIPELINE = PipelineParser.parse("perlin:scale=1;white:seed=3@0.2");
+
+    private Path root;
+    private Path directory;
+
+    @BeforeEach
+    public void createDirectories() throws IOException {
+        root = Files.createTempDirectory("result-cache-test");
+        directory = root.resolve("cache");
+    }
+
+    @AfterEach
+    public void deleteDirectories() throws IOException {
+        try (Stream<Path> files = Files.walk(root)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Test
+    public void missThenHit() throws IOException {
+        ResultCache cache = new ResultCache(directory, 1 << 20);
+        Path input = image("input.png", 16, 16, 1);
+        Path output = image("output.png", 24, 12, 2);
+        Path restored = root.resolve("restored.png");
+
+        String key = cache.key(input, PIPELINE, 4);
+        assertNotNull(key);
+        assertNull(cache.restore(key, restored));
+        assertFalse(Files.exists(restored));
+
+        cache.store(key, output);
+        Dimension size = cache.restore(key, restored);
+        assertEquals(new Dimension(24, 12), size);
+        assertArrayEquals(Files.readAllBytes(output), Files.readAllBytes(restored));
+
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getEntries());
+        assertEquals(Files.size(output), cache.getUsedBytes());
+    }
+
+    @Test
+    public void keyCoversInputPipelineAndLevel() throws IOException {
+        ResultCache cache = new ResultCache(directory, 1 << 20);
+        Path input = image("input.png", 16, 16, 1);
+        Path other = image("other.png", 16, 16, 2);
+
+        String key = cache.key(input, PIPELINE, 4);
+        assertEquals(key, cache.key(input, PipelineParser.parse("perlin:scale=1;white:seed=3@0.2"), 4));
+        assertNotEquals(key, cache.key(other, PIPELINE, 4));
+        assertNotEquals(key, cache.key(input, PIPELINE, 9));
+        assertNotEquals(key, cache.key(input, PipelineParser.parse("perlin:scale=1;white:seed=4@0.2"), 4));
+        assertNotEquals(key, cache.key(input, PipelineParser.parse("perlin:scale=1,time=1;white:seed=3@0.2"), 4));
+        assertNull(cache.key(input, PipelineParser.parse("white:random=secure"), 4));
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsed() throws IOException {
+        Path[] outputs = {image("a.png", 32, 32, 1), image("b.png", 32, 32, 2), image("c.png", 32, 32, 3)};
+        long largest = 0;
+        for (Path output : outputs) {
+            largest = Math.max(largest, Files.size(output));
+        }
+        // room for any two entries but never three
+        ResultCache cache = new ResultCache(directory, 2 * largest + largest / 2);
+        Path restored = root.resolve("restored.png");
+
+        cache.store("a", outputs[0]);
+        cache.store("b", outputs[1]);
+        // a is now more recently used than b
+        assertNotNull(cache.restore("a", restored));
+        cache.store("c", outputs[2]);
+
+        assertEquals(1, cache.getEvictions());
+        assertEquals(2, cache.getEntries());
+        assertNull(cache.restore("b", restored));
+        assertFalse(Files.exists(directory.resolve("b.png")));
+        assertNotNull(cache.restore("a", restored));
+        assertNotNull(cache.restore("c", restored));
+        assertEquals(Files.size(outputs[0]) + Files.size(outputs[2]), cache.getUsedBytes());
+    }
+
+    @Test
+    public void outputLargerThanBudgetIsNotStored() throws IOException {
+        Path output = image("big.png", 64, 64, 1);
+        ResultCache cache = new ResultCache(directory, Files.size(output) - 1);
+        cache.store("big", output);
+        assertEquals(0, cache.getEntries());
+        assertNull(cache.restore("big", root.resolve("restored.png")));
+    }
+
+    @Test
+    public void reopenKeepsEntriesAndOrder() throws IOException {
+        Path[] outputs = {image("a.png", 32, 32, 1), image("b.png", 32, 32, 2), image("c.png", 32, 32, 3)};
+        ResultCache cache = new ResultCache(directory, 1 << 20);
+        cache.store("a", outputs[0]);
+        cache.store("b", outputs[1]);
+        cache.store("c", outputs[2]);
+        // b was used last and a longest ago, whatever the order they were written in
+        long now = System.currentTimeMillis();
+        Files.setLastModifiedTime(directory.resolve("c.png"), FileTime.fromMillis(now - 30_000));
+        Files.setLastModifiedTime(directory.resolve("a.png"), FileTime.fromMillis(now - 60_000));
+        Files.setLastModifiedTime(directory.resolve("b.png"), FileTime.fromMillis(now - 10_000));
+
+        ResultCache reopened = new ResultCache(directory, 1 << 20);
+        assertEquals(3, reopened.getEntries());
+        assertEquals(cache.getUsedBytes(), reopened.getUsedBytes());
+        assertEquals(new Dimension(32, 32), reopened.restore("c", root.resolve("restored.png")));
+
+        // a budget for two keeps the two most recently used; reopening has to evict straight away
+        long budget = Files.size(directory.resolve("b.png")) + Files.size(directory.resolve("c.png"));
+        ResultCache smaller = new ResultCache(directory, budget);
+        assertEquals(2, smaller.getEntries());
+        assertEquals(1, smaller.getEvictions());
+        assertFalse(Files.exists(directory.resolve("a.png")));
+        assertTrue(Files.exists(directory.resolve("b.png")));
+        assertTrue(Files.exists(directory.resolve("c.png")));
+    }
+
+    @Test
+    public void entryDeletedAfterLookupIsMiss() throws IOException {
+        ResultCache cache = new ResultCache(directory, 1 << 20);
+        cache.store("gone", image("output.png", 8, 8, 1));
+        // stands in for another process, or an eviction, removing the file between the index lookup and the copy
+        Files.delete(directory.resolve("gone.png"));
+
+        assertNull(cache.restore("gone", root.resolve("restored.png")));
+        assertEquals(0, cache.getEntries());
+        assertEquals(0, cache.getUsedBytes());
+        assertEquals(1, cache.getMisses());
+        assertEquals(0, cache.getHits());
+    }
+
+    @Test
+    public void temporaryFilesAreNotEntries() throws IOException {
+        Files.createDirectories(directory);
+        Files.write(directory.resolve("half-written.tmp"), new byte[100]);
+        ResultCache cache = new ResultCache(directory, 1 << 20);
+        assertEquals(0, cache.getEntries());
+        assertEquals(0, cache.getUsedBytes());
+    }
+
+    private Path image(String name, int width, int height, long seed) throws IOException {
+        SplittableRandom random = new SplittableRandom(seed);
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, random.nextInt());
+            }
+        }
+        Path file = root.resolve(name);
+        ImageIO.write(image, "png", file.toFile());
+        return file;
+    }
+}
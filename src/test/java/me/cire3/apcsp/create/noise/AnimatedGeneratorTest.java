@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2025 cire3. All Rights Reserved.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package me.cire3.apcsp.create.noise;
+
+import me.cire3.apcsp.create.pipeline.PipelineParser;
+import me.cire3.apcsp.create.random.RandomSource;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AnimatedGeneratorTest {
+    private static final int SIDE = 96;
+    private static final String PIPELINE = "perlin:scale=0.8@0.5;value:size=256,scale=0.05,seed=2@0.5;"
+            + "white:seed=3@0.2;gaussian:sigma=0.3,seed=4@0.2;saltpepper:probability=0.02,seed=5@0.1;"
+            + "fractal:octaves=3@0.3";
+
+    @Test
+    public void frameZeroIsTheStill() {
+        List<WeightedGenerator> still = PipelineParser.parse(PIPELINE);
+        assertArrayEquals(render(still, -40, 17), render(AnimatedGenerator.atFrame(still, 0, 0.1f), -40, 17));
+        assertArrayEquals(render(still, 0, 0), render(AnimatedGenerator.atFrame(still, 0, 1.5f), 0, 0));
+
+        float[] perlin = render(new PerlinNoiseGenerator(0.8f), 5, 5);
+        assertArrayEquals(perlin, render(new PerlinNoiseGenerator(0.8f, 0f), 5, 5));
+    }
+
+    @Test
+    public void laterFramesMove() {
+        List<WeightedGenerator> still = PipelineParser.parse(PIPELINE);
+        float[] first = render(AnimatedGenerator.atFrame(still, 0, 0.1f), 0, 0);
+        for (WeightedGenerator generator : still) {
+            List<WeightedGenerator> one = List.of(generator);
+            float[] later = render(AnimatedGenerator.atFrame(one, 3, 0.1f), 0, 0);
+            // fractal noise has neither a time axis nor a random source, so it holds still
+            if (generator.getGenerator() instanceof FractalNoiseGenerator) {
+                assertArrayEquals(render(one, 0, 0), later);
+            } else {
+                assertFalse(Arrays.equals(render(one, 0, 0), later), generator + " did not change by frame 3");
+            }
+        }
+        assertFalse(Arrays.equals(first, render(AnimatedGenerator.atFrame(still, 1, 0.1f), 0, 0)));
+
+        // frames are cut from the originals, so rendering one does not advance the next
+        assertArrayEquals(render(AnimatedGenerator.atFrame(still, 2, 0.1f), 0, 0),
+                render(AnimatedGenerator.atFrame(still, 2, 0.1f), 0, 0));
+    }
+
+    @Test
+    public void nearbyTimesLookAlike() {
+        for (float time : new float[]{0f, 0.3f, 2.5f, 7.9f}) {
+            for (AnimatedGenerator generator : animated(time)) {
+                float[] now = render(generator, -20, 30);
+                float[] step = render(at(generator, time + 0.01f), -20, 30);
+                float[] slice = render(at(generator, time + 1f), -20, 30);
+
+                double small = meanDifference(now, step);
+                double large = meanDifference(now, slice);
+                assertTrue(large > 0, generator + " at " + time + " has the same next slice");
+                assertTrue(small < large / 20, generator + " at " + time + ": " + small + " against " + large);
+            }
+        }
+    }
+
+    @Test
+    public void sliceBoundariesAreContinuous() {
+        for (float boundary : new float[]{0f, 1f, 4f}) {
+            for (AnimatedGenerator generator : animated(boundary)) {
+                float[] before = render(at(generator, boundary - 1e-3f), 3, 9);
+                float[] after = render(generator, 3, 9);
+                float range = range(after);
+                for (int i = 0; i < after.length; i++) {
+                    assertEquals(after[i], before[i], range * 1e-3f, generator + " across time " + boundary);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void samplePointMatchesFillRegionBetweenSlices() {
+        for (float time : new float[]{0.25f, 1.5f, 3.75f}) {
+            for (AnimatedGenerator generator : animated(time)) {
+                int x0 = -33;
+                int y0 = 12;
+                float[] field = render(generator, x0, y0);
+                float range = range(field);
+                for (int y = 0; y < SIDE; y++) {
+                    for (int x = 0; x < SIDE; x++) {
+                        assertEquals(generator.samplePoint(x0 + x, y0 + y), field[y * SIDE + x], range * 1e-4f,
+                                generator + " at time " + time + ", pixel " + x + "," + y);
+                    }
+                }
+            }
+        }
+    }
+
+    private static List<AnimatedGenerator> animated(float time) {
+        List<AnimatedGenerator> generators = new ArrayList<>();
+        generators.add(new PerlinNoiseGenerator(0.8f, time));
+        ValueNoiseGenerator value = new ValueNoiseGenerator(256, 256, 0.05f, RandomSource.seeded(2));
+        value.setTime(time);
+        generators.add(value);
+        return generators;
+    }
+
+    private static AnimatedGenerator at(AnimatedGenerator generator, float time) {
+        AnimatedGenerator copy = (AnimatedGenerator) generator.copy();
+        copy.setTime(time);
+        return copy;
+    }
+
+    private static float[] render(List<? extends NoiseGenerator> generators, int x0, int y0) {
+        float[] field = new float[SIDE * SIDE];
+        for (NoiseGenerator generator : generators) {
+            generator.fillRegion(field, 0, SIDE, x0, y0, SIDE, SIDE, 1f);
+        }
+        return field;
+    }
+
+    private static float[] render(NoiseGenerator generator, int x0, int y0) {
+        return render(List.of(generator), x0, y0);
+    }
+
+    private static double meanDifference(float[] a, float[] b) {
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += Math.abs(a[i] - b[i]);
+        }
+        return sum / a.length;
+    }
+
+    private static float range(float[] field) {
+        float min = Float.POSITIVE_INFINITY;
+        float max = Float.NEGATIVE_INFINITY;
+        for (float value : field) {
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+        return max - min;
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2025 cire3. All Rights Reserved.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package me.cire3.apcsp.create.noise;
+
+import me.cire3.apcsp.create.random.RandomSource;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SaltAndPepperNoiseGeneratorTest {
+    private static final int SIDE = 1024;
+
+    @Test
+    public void hitRateMatchesProbability() {
+        for (float probability : new float[]{0.001f, 0.01f, 0.05f, 0.2f, 0.5f, 0.9f}) {
+            SaltAndPepperNoiseGenerator generator = new SaltAndPepperNoiseGenerator(probability, RandomSource.seeded(16));
+            float[] field = new float[SIDE * SIDE];
+            // an origin off the 64-pixel block grid, on both sides of zero
+            generator.fillRegion(field, 0, SIDE, -517, -300, SIDE, SIDE, 1f);
+
+            long salt = 0;
+            long pepper = 0;
+            for (float value : field) {
+                if (value > 0) {
+                    salt++;
+                } else if (value < 0) {
+                    pepper++;
+                }
+            }
+            long hits = salt + pepper;
+            double expected = (double) probability * field.length;
+            double tolerance = 5 * Math.sqrt(expected * (1 - probability));
+            assertEquals(expected, hits, tolerance, "hits at probability " + probability);
+            assertEquals(hits / 2.0, salt, 5 * Math.sqrt(hits / 4.0), "salt at probability " + probability);
+        }
+    }
+
+    @Test
+    public void edgeProbabilities() {
+        float[] field = new float[256 * 16];
+        new SaltAndPepperNoiseGenerator(0f, RandomSource.seeded(1)).fillRegion(field, 0, 256, 3, 5, 256, 16, 1f);
+        assertArrayEquals(new float[field.length], field);
+
+        new SaltAndPepperNoiseGenerator(1f, RandomSource.seeded(1)).fillRegion(field, 0, 256, 3, 5, 256, 16, 1f);
+        for (float value : field) {
+            assertTrue(value != 0, "a pixel was missed at probability 1");
+        }
+    }
+
+    @Test
+    public void onlyHitPixelsAreWritten() {
+        SaltAndPepperNoiseGenerator generator = new SaltAndPepperNoiseGenerator(0.1f, RandomSource.seeded(4));
+        float[] field = new float[128 * 128];
+        Arrays.fill(field, 0.25f);
+        generator.fillRegion(field, 0, 128, 0, 0, 128, 128, 0.5f);
+        for (float value : field) {
+            // 0.25 plus half an impulse of 13 either way, or untouched
+            assertTrue(value == 0.25f || value == 6.75f || value == -6.25f, "unexpected value " + value);
+        }
+    }
+
+    @Test
+    public void samplePointMatchesFillRegion() {
+        SaltAndPepperNoiseGenerator generator = new SaltAndPepperNoiseGenerator(0.2f, RandomSource.seeded(9));
+        SplittableRandom random = new SplittableRandom(3);
+        for (int region = 0; region < 50; region++) {
+            int width = 1 + random.nextInt(150);
+            int height = 1 + random.nextInt(20);
+            int x0 = random.nextInt(-1000, 1000);
+            int y0 = random.nextInt(-1000, 1000);
+            float[] field = new float[width * height];
+            generator.fillRegion(field, 0, width, x0, y0, width, height, 1f);
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    int px = x0 + x;
+                    int py = y0 + y;
+                    assertEquals(field[y * width + x], generator.samplePoint(px, py), 0,
+                            () -> "pixel " + px + "," + py);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void tilingDoesNotChangeField() {
+        SaltAndPepperNoiseGenerator generator = new SaltAndPepperNoiseGenerator(0.05f, RandomSource.seeded(12));
+        int width = 300;
+        int height = 200;
+        int x0 = -77;
+        int y0 = 41;
+        float[] whole = new float[width * height];
+        generator.fillRegion(whole, 0, width, x0, y0, width, height, 1f);
+
+        // tile sizes on, off and well under the 64-pixel block grid
+        for (int[] tile : new int[][]{{64, 64}, {37, 23}, {1, 7}, {200, 1}, {width, 3}}) {
+            float[] tiled = new float[width * height];
+            for (int ty = 0; ty < height; ty += tile[1]) {
+                for (int tx = 0; tx < width; tx += tile[0]) {
+                    int w = Math.min(tile[0], width - tx);
+                    int h = Math.min(tile[1], height - ty);
+                    generator.fillRegion(tiled, ty * width + tx, width, x0 + tx, y0 + ty, w, h, 1f);
+                }
+            }
+            assertArrayEquals(whole, tiled, () -> "tiles of " + tile[0] + "x" + tile[1]);
+        }
+    }
+}
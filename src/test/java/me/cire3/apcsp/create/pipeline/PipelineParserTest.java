@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2025 cire3. All Rights Reserved.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package me.cire3.apcsp.create.pipeline;
+
+import me.cire3.apcsp.create.noise.ValueNoiseGenerator;
+import me.cire3.apcsp.create.noise.WeightedGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PipelineParserTest {
+    @Test
+    public void valueSizeMustBePowerOfTwo() {
+        for (String size : new String[]{"-1", "0", "3", "100", "255", "2.5", "abc", "4294967552"}) {
+            assertThrows(IllegalArgumentException.class, () -> PipelineParser.parse("value:size=" + size + ",seed=1"));
+        }
+        for (int size : new int[]{1, 2, 64, 256, 1024}) {
+            List<WeightedGenerator> generators = PipelineParser.parse("value:size=" + size + ",seed=1");
+            assertEquals(size, ((ValueNoiseGenerator) generators.get(0).getGenerator()).getSize());
+        }
+    }
+
+    @Test
+    public void valueConstructorRejectsBadSizes() {
+        assertThrows(IllegalArgumentException.class, () -> new ValueNoiseGenerator(0, 0, 0.2f));
+        assertThrows(IllegalArgumentException.class, () -> new ValueNoiseGenerator(-1, 256, 0.2f));
+        assertThrows(IllegalArgumentException.class, () -> new ValueNoiseGenerator(100, 100, 0.2f));
+    }
+
+    @Test
+    public void unknownInputIsIllegalArgument() {
+        for (String pipeline : new String[]{"nonsense", "perlin:scale=abc", "perlin:bogus=1", "gaussian:seed=x",
+                "fractal:mode=sideways", "white:random=dice", "perlin@heavy"}) {
+            IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                    () -> PipelineParser.parse(pipeline));
+            assertTrue(e.getMessage() != null && !e.getMessage().isEmpty(), pipeline);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2025 cire3. All Rights Reserved.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package me.cire3.apcsp.create.pipeline;
+
+import me.cire3.apcsp.create.noise.NoiseGenerator;
+import me.cire3.apcsp.create.noise.WeightedGenerator;
+import me.cire3.apcsp.create.noise.WhiteNoiseGenerator;
+import me.cire3.apcsp.create.random.RandomSource;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PipelineSpecTest {
+    private static final int TILE = 48;
+
+    // every generator type with non-default parameters, seeds and times, already in canonical form
+    private static final String[] CANONICAL = {
+            "gaussian:mu=0.25,sigma=0.75,seed=11@0.5",
+            "perlin:scale=1.5@0.8",
+            "perlin:scale=1.0,time=2.5@1.0",
+            "saltpepper:probability=0.05,seed=12@0.3",
+            "value:size=128,scale=0.3,seed=13@0.5",
+            "value:size=256,scale=0.2,time=0.75,seed=14@0.25",
+            "white:seed=15@0.2",
+            "gradient:frequency=0.0625,scale=2.0@0.4",
+            "simplex:frequency=0.03125,scale=1.25,seed=16@0.6",
+            "fractal:octaves=4,lacunarity=2.5,gain=0.45,frequency=0.02,mode=fbm@0.7",
+            "fractal:octaves=3,lacunarity=2.0,gain=0.5,frequency=0.015625,mode=turbulence@0.7",
+            "fractal:octaves=6,lacunarity=1.75,gain=0.6,frequency=0.01,mode=ridged@0.7",
+    };
+
+    @Test
+    public void everyGeneratorTypeRoundTrips() {
+        for (String entry : CANONICAL) {
+            PipelineSpec spec = PipelineSpec.parse(entry);
+            assertEquals(List.of(entry), spec.getEntries(), entry);
+
+            PipelineSpec again = PipelineSpec.of(spec.toGenerators());
+            assertEquals(spec, again, entry);
+            assertEquals(spec.toString(), again.toString(), entry);
+            assertTrue(spec.isDeterministic(), entry);
+
+            // the text alone reproduces the field, including the seed and the time slice
+            assertArrayEquals(render(PipelineParser.parse(entry)), render(again.toGenerators()), entry);
+        }
+    }
+
+    @Test
+    public void wholePipelineRoundTrips() {
+        PipelineSpec spec = PipelineSpec.parse(String.join(";", CANONICAL));
+        assertEquals(List.of(CANONICAL), spec.getEntries());
+        assertEquals(spec, PipelineSpec.parse(spec.toString()));
+        assertArrayEquals(render(PipelineParser.parse(String.join(";", CANONICAL))), render(spec.toGenerators()));
+    }
+
+    @Test
+    public void defaultsAndSeedsAreSpelledOut() {
+        PipelineSpec spec = PipelineSpec.parse("value");
+        String entry = spec.getEntries().get(0);
+        assertTrue(entry.startsWith("value:size=256,scale=0.2,seed="), entry);
+        // the seed picked for an unseeded entry is kept, so the spec describes one field from then on
+        assertEquals(spec, PipelineSpec.parse(spec.toString()));
+        assertArrayEquals(render(spec.toGenerators()), render(spec.toGenerators()));
+    }
+
+    @Test
+    public void timeIsLeftOutAtZero() {
+        assertEquals(List.of("perlin:scale=1.0@1.0"), PipelineSpec.parse("perlin:time=0").getEntries());
+        assertEquals(List.of("perlin:scale=1.0,time=0.5@1.0"), PipelineSpec.parse("perlin:time=0.5").getEntries());
+    }
+
+    @Test
+    public void nestedWeightsAreFolded() {
+        NoiseGenerator white = new WhiteNoiseGenerator(RandomSource.seeded(3));
+        PipelineSpec spec = PipelineSpec.of(List.of(new WeightedGenerator(new WeightedGenerator(white, 0.5f), 0.5f)));
+        assertEquals(List.of("white:seed=3@0.25"), spec.getEntries());
+    }
+
+    @Test
+    public void secureSourceIsNotDeterministic() {
+        PipelineSpec spec = PipelineSpec.parse("white:random=secure;perlin");
+        assertFalse(spec.isDeterministic());
+        assertEquals("white:random=secure@1.0", spec.getEntries().get(0));
+        assertEquals(spec, PipelineSpec.parse(spec.toString()));
+    }
+
+    @Test
+    public void writeAndReadBack() throws Exception {
+        PipelineSpec spec = PipelineSpec.parse(String.join(";", CANONICAL));
+        Path file = Files.createTempFile("pipeline", ".noise");
+        try {
+            spec.write(file);
+            assertEquals(spec, PipelineSpec.read(file));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static float[] render(List<? extends NoiseGenerator> generators) {
+        float[] tile = new float[TILE * TILE];
+        for (NoiseGenerator generator : generators) {
+            generator.fillRegion(tile, 0, TILE, 37, -11, TILE, TILE, 1f);
+        }
+        return tile;
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2025 cire3. All Rights Reserved.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package me.cire3.apcsp.create.png;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.SplittableRandom;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PngEncoderTest {
+    private static final int IDAT = 0x49444154;
+    private static final int[] LEVELS = {PngEncoder.UNCOMPRESSED, PngEncoder.FAST, PngEncoder.DEFAULT_LEVEL, PngEncoder.BEST};
+    private static final int PARALLELISM = 4;
+    private static final int CHUNK_BYTES = 1 << 17;
+
+    // width and height; the encoder splits at about 128 KiB of filtered rows, so these cover a single chunk, several
+    // chunks of many rows, one row per chunk and single-row images
+    private static final int[][] SIZES = {
+            {1, 1},
+            {5000, 1},
+            {300, 400},
+            {20, 7000},
+            {40000, 3},
+    };
+
+    @Test
+    public void randomImagesRoundTrip() throws IOException, DataFormatException {
+        SplittableRandom random = new SplittableRandom(19);
+        for (int[] size : SIZES) {
+            int[] argb = new int[size[0] * size[1]];
+            for (int i = 0; i < argb.length; i++) {
+                argb[i] = random.nextInt();
+            }
+            roundTrip(size[0], size[1], argb);
+        }
+    }
+
+    @Test
+    public void gradientImagesRoundTrip() throws IOException, DataFormatException {
+        for (int[] size : SIZES) {
+            int width = size[0];
+            int height = size[1];
+            int[] argb = new int[width * height];
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    int a = 255 - y * 255 / Math.max(1, height - 1);
+                    int r = x * 255 / Math.max(1, width - 1);
+                    int g = y * 255 / Math.max(1, height - 1);
+                    int b = (x + y) & 0xFF;
+                    argb[y * width + x] = a << 24 | r << 16 | g << 8 | b;
+                }
+            }
+            roundTrip(width, height, argb);
+        }
+    }
+
+    private static void roundTrip(int width, int height, int[] argb) throws IOException, DataFormatException {
+        for (int level : LEVELS) {
+            String name = width + "x" + height + " level " + level;
+            byte[] serial = encode(width, height, argb, level, 1);
+            byte[] parallel = encode(width, height, argb, level, PARALLELISM);
+            assertArrayEquals(serial, parallel, name + " differs between parallelism 1 and " + PARALLELISM);
+
+            assertPixels(name, width, height, argb, serial);
+            assertZlibStream(name, width, height, serial);
+        }
+    }
+
+    private static byte[] encode(int width, int height, int[] argb, int level, int parallelism) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (PngEncoder encoder = new PngEncoder(level, parallelism)) {
+            encoder.encode(width, height, (y, row) -> System.arraycopy(argb, y * width, row, 0, width), out);
+        }
+        return out.toByteArray();
+    }
+
+    private static void assertPixels(String name, int width, int height, int[] argb, byte[] png) throws IOException {
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(png));
+        assertNotNull(image, name + " did not decode");
+        assertEquals(width, image.getWidth(), name + " width");
+        assertEquals(height, image.getHeight(), name + " height");
+        int[] row = new int[width];
+        int[] expected = new int[width];
+        for (int y = 0; y < height; y++) {
+            image.getRGB(0, y, width, 1, row, 0, width);
+            System.arraycopy(argb, y * width, expected, 0, width);
+            int line = y;
+            assertArrayEquals(expected, row, () -> name + " row " + line);
+        }
+    }
+
+    // every chunk CRC must match, and the concatenated IDAT payload must inflate to exactly the filtered rows with the
+    // Adler-32 in its trailer matching them
+    private static void assertZlibStream(String name, int width, int height, byte[] png)
+            throws IOException, DataFormatException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(png));
+        in.skipBytes(8);
+        ByteArrayOutputStream idat = new ByteArrayOutputStream();
+        int chunks = 0;
+        while (in.available() > 0) {
+            int length = in.readInt();
+            byte[] typeAndData = new byte[4 + length];
+            in.readFully(typeAndData);
+            CRC32 crc = new CRC32();
+            crc.update(typeAndData);
+            assertEquals((int) crc.getValue(), in.readInt(), name + " chunk CRC");
+
+            int type = (typeAndData[0] & 0xFF) << 24 | (typeAndData[1] & 0xFF) << 16
+                    | (typeAndData[2] & 0xFF) << 8 | typeAndData[3] & 0xFF;
+            if (type == IDAT) {
+                idat.write(typeAndData, 4, length);
+                chunks++;
+            }
+        }
+        byte[] stream = idat.toByteArray();
+
+        int stride = 1 + 4 * width;
+        int rowsPerChunk = Math.max(1, Math.min(height, CHUNK_BYTES / stride));
+        assertEquals((height + rowsPerChunk - 1) / rowsPerChunk, chunks, name + " IDAT chunks");
+
+        int expectedLength = height * stride;
+        byte[] raw = new byte[expectedLength + 1];
+        Inflater inflater = new Inflater();
+        int length = 0;
+        try {
+            inflater.setInput(stream);
+            while (!inflater.finished() && length < raw.length) {
+                int n = inflater.inflate(raw, length, raw.length - length);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                length += n;
+            }
+            assertTrue(inflater.finished(), name + " zlib stream did not finish");
+            assertEquals(0, inflater.getRemaining(), name + " trailing bytes after the zlib stream");
+        } finally {
+            inflater.end();
+        }
+        assertEquals(expectedLength, length, name + " inflated length");
+
+        Adler32 adler = new Adler32();
+        adler.update(raw, 0, length);
+        int trailer = (stream[stream.length - 4] & 0xFF) << 24 | (stream[stream.length - 3] & 0xFF) << 16
+                | (stream[stream.length - 2] & 0xFF) << 8 | stream[stream.length - 1] & 0xFF;
+        assertEquals((int) adler.getValue(), trailer, name + " Adler-32");
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright (c) 2025 cire3. All Rights Reserved.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package me.cire3.apcsp.create.random;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ZigguratTest {
+    private static final int SIDE = 2000;
+    private static final int SAMPLES = SIDE * SIDE;
+
+    // where the ziggurat hands off to its exponential tail sampler
+    private static final double TAIL = 3.442619855899;
+
+    // the moment tolerances are about five standard errors at this sample size (sqrt(k / n) for k = 1, 2, 6, 24)
+    private static final double MEAN_TOLERANCE = 5 * Math.sqrt(1.0 / SAMPLES);
+    private static final double VARIANCE_TOLERANCE = 5 * Math.sqrt(2.0 / SAMPLES);
+    private static final double SKEWNESS_TOLERANCE = 5 * Math.sqrt(6.0 / SAMPLES);
+    private static final double KURTOSIS_TOLERANCE = 5 * Math.sqrt(24.0 / SAMPLES);
+
+    // 32 bins of width 0.25 over [-4, 4] plus one for each side beyond, and the 0.1% critical value for 33 degrees of
+    // freedom
+    private static final double BIN_WIDTH = 0.25;
+    private static final int INNER_BINS = 32;
+    private static final double CHI_SQUARE_CRITICAL = 63.87;
+
+    @Test
+    public void normalIsStandardNormal() {
+        SplittableRandom random = new SplittableRandom(0x5EEDL);
+        double[] samples = new double[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            samples[i] = Ziggurat.normal(random.nextLong());
+        }
+        assertStandardNormal(samples);
+    }
+
+    @Test
+    public void bulkGaussiansAreStandardNormal() {
+        RandomSource source = RandomSource.seeded(42);
+        double[] samples = new double[SAMPLES];
+        double[] row = new double[SIDE];
+        for (int y = 0; y < SIDE; y++) {
+            source.nextGaussians(-SIDE / 2, y, row, SIDE);
+            System.arraycopy(row, 0, samples, y * SIDE, SIDE);
+        }
+        assertStandardNormal(samples);
+    }
+
+    @Test
+    public void bulkGaussiansMatchPerPixel() {
+        RandomSource source = RandomSource.seeded(42);
+        double[] row = new double[SIDE];
+        double[] single = new double[SIDE];
+        for (int y = 0; y < 16; y++) {
+            source.nextGaussians(-SIDE / 2, y, row, SIDE);
+            for (int i = 0; i < SIDE; i++) {
+                single[i] = source.nextGaussian(-SIDE / 2 + i, y);
+            }
+            for (int i = 0; i < SIDE; i++) {
+                assertEquals(Double.doubleToLongBits(single[i]), Double.doubleToLongBits(row[i]), "pixel " + i + " row " + y);
+            }
+        }
+    }
+
+    private static void assertStandardNormal(double[] samples) {
+        int n = samples.length;
+        double mean = 0;
+        for (double x : samples) {
+            mean += x;
+        }
+        mean /= n;
+
+        double m2 = 0;
+        double m3 = 0;
+        double m4 = 0;
+        for (double x : samples) {
+            double d = x - mean;
+            double d2 = d * d;
+            m2 += d2;
+            m3 += d2 * d;
+            m4 += d2 * d2;
+        }
+        m2 /= n;
+        m3 /= n;
+        m4 /= n;
+
+        assertEquals(0, mean, MEAN_TOLERANCE, "mean");
+        assertEquals(1, m2, VARIANCE_TOLERANCE, "variance");
+        assertEquals(0, m3 / Math.pow(m2, 1.5), SKEWNESS_TOLERANCE, "skewness");
+        assertEquals(0, m4 / (m2 * m2) - 3, KURTOSIS_TOLERANCE, "excess kurtosis");
+
+        assertTailFrequency(samples, 2);
+        assertTailFrequency(samples, 3);
+        assertTailFrequency(samples, TAIL);
+        assertTailFrequency(samples, 4);
+        assertTailIsSymmetric(samples, TAIL);
+
+        assertBinsFit(samples);
+    }
+
+    // the count of |x| > k within five binomial standard deviations of 2 * (1 - phi(k))
+    private static void assertTailFrequency(double[] samples, double k) {
+        long count = 0;
+        for (double x : samples) {
+            if (Math.abs(x) > k) {
+                count++;
+            }
+        }
+        double p = upperTail(k) * 2;
+        double expected = p * samples.length;
+        double tolerance = 5 * Math.sqrt(expected * (1 - p));
+        assertEquals(expected, count, tolerance, "samples beyond " + k + " sigma");
+    }
+
+    // the tail sampler picks the side from the sign of the first uniform, so both sides must be populated evenly
+    private static void assertTailIsSymmetric(double[] samples, double k) {
+        long above = 0;
+        long below = 0;
+        for (double x : samples) {
+            if (x > k) {
+                above++;
+            } else if (x < -k) {
+                below++;
+            }
+        }
+        double expected = upperTail(k) * samples.length;
+        double tolerance = 5 * Math.sqrt(expected);
+        assertEquals(expected, above, tolerance, "samples above " + k);
+        assertEquals(expected, below, tolerance, "samples below " + -k);
+    }
+
+    private static void assertBinsFit(double[] samples) {
+        double edge = INNER_BINS / 2 * BIN_WIDTH;
+        long[] observed = new long[INNER_BINS + 2];
+        for (double x : samples) {
+            int bin;
+            if (x < -edge) {
+                bin = 0;
+            } else if (x >= edge) {
+                bin = INNER_BINS + 1;
+            } else {
+                bin = 1 + Math.min(INNER_BINS - 1, (int) ((x + edge) / BIN_WIDTH));
+            }
+            observed[bin]++;
+        }
+
+        double chiSquare = 0;
+        for (int bin = 0; bin < observed.length; bin++) {
+            double lower = bin == 0 ? Double.NEGATIVE_INFINITY : -edge + (bin - 1) * BIN_WIDTH;
+            double upper = bin == INNER_BINS + 1 ? Double.POSITIVE_INFINITY : -edge + bin * BIN_WIDTH;
+            double expected = (cdf(upper) - cdf(lower)) * samples.length;
+            double d = observed[bin] - expected;
+            chiSquare += d * d / expected;
+        }
+        double statistic = chiSquare;
+        assertTrue(statistic < CHI_SQUARE_CRITICAL, () -> "chi-square " + statistic + " over " + observed.length + " bins");
+    }
+
+    private static double cdf(double x) {
+        if (x == Double.NEGATIVE_INFINITY) {
+            return 0;
+        }
+        if (x == Double.POSITIVE_INFINITY) {
+            return 1;
+        }
+        return x < 0 ? upperTail(-x) : 1 - upperTail(x);
+    }
+
+    // 1 - phi(x) for x >= 0
+    private static double upperTail(double x) {
+        return 0.5 * erfc(x / Math.sqrt(2));
+    }
+
+    // Chebyshev fit from Numerical Recipes, fractional error below 1.2e-7 everywhere
+    private static double erfc(double x) {
+        double z = Math.abs(x);
+        double t = 1 / (1 + 0.5 * z);
+        double r = t * Math.exp(-z * z - 1.26551223 + t * (1.00002368 + t * (0.37409196 + t * (0.09678418
+                + t * (-0.18628806 + t * (0.27886807 + t * (-1.13520398 + t * (1.48851587
+                + t * (-0.82215223 + t * 0.17087277)))))))));
+        return x >= 0 ? r : 2 - r;
+    }
+}
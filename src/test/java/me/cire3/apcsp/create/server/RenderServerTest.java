@@ -0,0 +1,248 @@
+/*
+ * Copyright (c) 2025 cire3. All Rights Reserved.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package me.cire3.apcsp.create.server;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RenderServerTest {
+    private static final String PIPELINE = "perlin:scale=1";
+    private static final int BURST = 12;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private RenderServer server;
+
+    @BeforeEach
+    public void start() throws IOException {
+        // one render thread and one queued request, so the third concurrent request has nowhere to go
+        server = new RenderServer(0, 1, 1, null);
+        server.start();
+    }
+
+    @AfterEach
+    public void stop() {
+        server.close();
+    }
+
+    @Test
+    public void renderReturnsPng() throws Exception {
+        BufferedImage input = image(64, 48);
+        HttpResponse<byte[]> response = render("pipeline=" + PIPELINE + "&seed=42", png(input));
+
+        assertEquals(200, response.statusCode());
+        assertEquals(Optional.of("image/png"), response.headers().firstValue("Content-Type"));
+        BufferedImage output = ImageIO.read(new ByteArrayInputStream(response.body()));
+        assertNotNull(output, "response is not a readable image");
+        assertEquals(input.getWidth(), output.getWidth());
+        assertEquals(input.getHeight(), output.getHeight());
+    }
+
+    @Test
+    public void badPipelineIsBadRequest() throws Exception {
+        byte[] png = png(image(8, 8));
+        assertEquals(400, render("pipeline=nonsense:scale=1", png).statusCode());
+        assertEquals(400, render("pipeline=perlin:scale=abc", png).statusCode());
+        assertEquals(400, render("seed=42", png).statusCode());
+        assertEquals(400, render("pipeline=" + PIPELINE + "&compression=12", png).statusCode());
+        assertEquals(400, render("pipeline=value:size=-1", png).statusCode());
+    }
+
+    @Test
+    public void undecodableUploadIsUnprocessable() throws Exception {
+        byte[] garbage = "definitely not an image".getBytes(StandardCharsets.UTF_8);
+        assertEquals(422, render("pipeline=" + PIPELINE, garbage).statusCode());
+
+        // the PNG reader reports truncation as an IIOException, the BMP reader as a bare EOFException
+        BufferedImage opaque = new BufferedImage(64, 64, BufferedImage.TYPE_INT_RGB);
+        opaque.getGraphics().drawImage(image(64, 64), 0, 0, null);
+        for (String format : new String[]{"png", "bmp"}) {
+            byte[] encoded = encode(opaque, format);
+            byte[] truncated = Arrays.copyOf(encoded, encoded.length / 2);
+            assertEquals(422, render("pipeline=" + PIPELINE, truncated).statusCode(), "truncated " + format);
+        }
+    }
+
+    @Test
+    public void oversizedUploadIsTooLarge() throws Exception {
+        try (RenderServer small = new RenderServer(0, 1, 4, 1000, null)) {
+            small.start();
+            URI render = URI.create("http://127.0.0.1:" + small.getPort() + "/render?pipeline=" + PIPELINE);
+            // just past the limit, and thousands of times past it so most of the body is still unread at the reply
+            for (int size : new int[]{5 << 10, 200 << 10, 4 << 20}) {
+                HttpResponse<String> response = client.send(HttpRequest.newBuilder(render)
+                        .POST(HttpRequest.BodyPublishers.ofByteArray(new byte[size])).build(),
+                        HttpResponse.BodyHandlers.ofString());
+                assertEquals(413, response.statusCode(), "upload of " + size + " bytes");
+            }
+        }
+    }
+
+    @Test
+    public void getOnRenderIsMethodNotAllowed() throws Exception {
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(uri("/render")).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(405, response.statusCode());
+        assertEquals(Optional.of("POST"), response.headers().firstValue("Allow"));
+    }
+
+    @Test
+    public void burstPastQueueIsRefused() throws Exception {
+        // large enough that one render outlasts the whole burst arriving
+        byte[] png = png(image(512, 512));
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicInteger deepest = new AtomicInteger();
+        CompletableFuture<Void> poller = CompletableFuture.runAsync(() -> {
+            while (running.get()) {
+                try {
+                    deepest.accumulateAndGet(queueDepth(metrics()), Math::max);
+                    Thread.sleep(2);
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        });
+
+        List<HttpResponse<byte[]>> responses = new ArrayList<>();
+        try {
+            List<CompletableFuture<HttpResponse<byte[]>>> pending = new ArrayList<>();
+            for (int i = 0; i < BURST; i++) {
+                pending.add(client.sendAsync(renderRequest("pipeline=" + PIPELINE + "&seed=" + i, png),
+                        HttpResponse.BodyHandlers.ofByteArray()));
+            }
+            for (CompletableFuture<HttpResponse<byte[]>> future : pending) {
+                responses.add(future.join());
+            }
+        } finally {
+            running.set(false);
+        }
+        poller.join();
+
+        int ok = 0;
+        int busy = 0;
+        for (HttpResponse<byte[]> response : responses) {
+            if (response.statusCode() == 503) {
+                busy++;
+                assertEquals(Optional.of("1"), response.headers().firstValue("Retry-After"));
+            } else {
+                assertEquals(200, response.statusCode(), () -> new String(response.body(), StandardCharsets.UTF_8));
+                ok++;
+            }
+        }
+
+        assertTrue(ok >= 1, "no request was rendered");
+        assertTrue(busy >= 1, "no request of " + BURST + " was refused");
+        assertEquals(1, deepest.get(), "deepest queue seen in /metrics");
+
+        String metrics = metrics();
+        assertEquals(0, queueDepth(metrics));
+        assertEquals(busy, counter(metrics, "server.rejected.busy"));
+        assertEquals(ok, counter(metrics, "server.completed"));
+    }
+
+    @Test
+    public void metricsReportQueue() throws Exception {
+        String metrics = metrics();
+        assertEquals(0, queueDepth(metrics));
+        assertEquals(1, counter(metrics, "server.queue.capacity"));
+        assertTrue(metrics.contains("server.renders.active"), metrics);
+        assertTrue(metrics.contains("server.throughput.images_per_second"), metrics);
+
+        HttpResponse<String> post = client.send(HttpRequest.newBuilder(uri("/metrics"))
+                .POST(HttpRequest.BodyPublishers.noBody()).build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(405, post.statusCode());
+    }
+
+    private HttpResponse<byte[]> render(String query, byte[] body) throws IOException, InterruptedException {
+        return client.send(renderRequest(query, body), HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private HttpRequest renderRequest(String query, byte[] body) {
+        return HttpRequest.newBuilder(uri("/render?" + query))
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                .build();
+    }
+
+    private String metrics() throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(uri("/metrics")).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        return response.body();
+    }
+
+    private static int queueDepth(String metrics) {
+        return (int) counter(metrics, "server.queue.depth");
+    }
+
+    // counters are printed as the name padded to a column followed by the value
+    private static long counter(String metrics, String name) {
+        for (String line : metrics.split("\n")) {
+            String[] fields = line.trim().split("\\s+");
+            if (fields.length == 2 && fields[0].equals(name)) {
+                return Long.parseLong(fields[1]);
+            }
+        }
+        return 0;
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://127.0.0.1:" + server.getPort() + path);
+    }
+
+    private static BufferedImage image(int width, int height) {
+        SplittableRandom random = new SplittableRandom(23);
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, 0xFF000000 | random.nextInt(1 << 24));
+            }
+        }
+        return image;
+    }
+
+    private static byte[] png(BufferedImage image) throws IOException {
+        return encode(image, "png");
+    }
+
+    private static byte[] encode(BufferedImage image, String format) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertTrue(ImageIO.write(image, format, out), "no " + format + " writer");
+        return out.toByteArray();
+    }
+}
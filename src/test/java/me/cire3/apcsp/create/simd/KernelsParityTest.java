@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2025 cire3. All Rights Reserved.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package me.cire3.apcsp.create.simd;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class KernelsParityTest {
+    // VectorKernels promises bit-identical results (same operation order, no fused multiply-adds), so no ulp slack
+    private static final int MAX_ULPS = 0;
+
+    // none of these are a multiple of 4, 8 or 16 lanes, so every call also runs the scalar tail
+    private static final int[] LENGTHS = {1, 3, 5, 7, 9, 15, 17, 31, 33, 63, 65, 131, 1021};
+    private static final int ROWS = 64;
+
+    private final ScalarKernels scalar = new ScalarKernels();
+
+    private static Kernels vector() {
+        assumeTrue(ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent(),
+                "jdk.incubator.vector is not in the boot layer");
+        return new VectorKernels();
+    }
+
+    @Test
+    public void compositeMatchesScalar() {
+        Kernels vector = vector();
+        SplittableRandom random = new SplittableRandom(5);
+        for (int length : LENGTHS) {
+            for (int row = 0; row < ROWS; row++) {
+                int offset = random.nextInt(8);
+                float[] noise = new float[offset + length];
+                int[] argb = new int[length];
+                for (int i = 0; i < length; i++) {
+                    noise[offset + i] = noise(random);
+                    argb[i] = pixel(random);
+                }
+                int[] expected = argb.clone();
+                int[] actual = argb.clone();
+                scalar.composite(noise, offset, expected, length);
+                vector.composite(noise, offset, actual, length);
+                for (int i = 0; i < length; i++) {
+                    int index = i;
+                    assertEquals(expected[i], actual[i], () -> String.format("composite length %d index %d noise %s argb %08x",
+                            length, index, noise[offset + index], argb[index]));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void perlinRowMatchesScalar() {
+        Kernels vector = vector();
+        SplittableRandom random = new SplittableRandom(17);
+        for (int length : LENGTHS) {
+            for (int row = 0; row < ROWS; row++) {
+                LatticeRow lattice = lattice(random, length, LatticeRow.PERLIN_CORNERS, 1.5f);
+                float v = random.nextFloat();
+                // large scales push the result into the [-3, 3] clamp
+                float scale = row % 4 == 0 ? 40f : 0.5f + random.nextFloat() * 2f;
+                float weight = random.nextFloat() * 2f - 0.5f;
+                int offset = random.nextInt(8);
+                float[] dst = background(random, offset + length);
+
+                float[] expected = dst.clone();
+                float[] actual = dst.clone();
+                scalar.perlinRow(lattice, length, v, scale, weight, expected, offset);
+                vector.perlinRow(lattice, length, v, scale, weight, actual, offset);
+                assertWithinUlps("perlinRow", length, expected, actual);
+            }
+        }
+    }
+
+    @Test
+    public void valueRowMatchesScalar() {
+        Kernels vector = vector();
+        SplittableRandom random = new SplittableRandom(29);
+        for (int length : LENGTHS) {
+            for (int row = 0; row < ROWS; row++) {
+                // corners up to +-4 reach past the [-2, 2] clamp
+                LatticeRow lattice = lattice(random, length, LatticeRow.VALUE_CORNERS, 4f);
+                float sy = ScalarKernels.ss(random.nextFloat());
+                float weight = random.nextFloat() * 2f - 0.5f;
+                int offset = random.nextInt(8);
+                float[] dst = background(random, offset + length);
+
+                float[] expected = dst.clone();
+                float[] actual = dst.clone();
+                scalar.valueRow(lattice, length, sy, weight, expected, offset);
+                vector.valueRow(lattice, length, sy, weight, actual, offset);
+                assertWithinUlps("valueRow", length, expected, actual);
+            }
+        }
+    }
+
+    private static LatticeRow lattice(SplittableRandom random, int length, int corners, float range) {
+        LatticeRow row = LatticeRow.local(length);
+        for (int i = 0; i < length; i++) {
+            // include both ends of the unit cell
+            row.fraction[i] = i % 13 == 0 ? 0f : i % 13 == 1 ? Math.nextDown(1f) : random.nextFloat();
+            for (int c = 0; c < corners; c++) {
+                row.corners[c][i] = (random.nextFloat() * 2f - 1f) * range;
+            }
+        }
+        return row;
+    }
+
+    private static float[] background(SplittableRandom random, int length) {
+        float[] dst = new float[length];
+        for (int i = 0; i < length; i++) {
+            dst[i] = random.nextFloat() * 2f - 1f;
+        }
+        return dst;
+    }
+
+    // mostly ordinary noise, with a share of values large enough to drive channels past 255 and below 0
+    private static float noise(SplittableRandom random) {
+        switch (random.nextInt(10)) {
+            case 0:
+                return 20f + random.nextFloat() * 100f;
+            case 1:
+                return -20f - random.nextFloat() * 100f;
+            case 2:
+                return random.nextBoolean() ? Float.POSITIVE_INFINITY : Float.NEGATIVE_INFINITY;
+            case 3:
+                return Float.NaN;
+            default:
+                return random.nextFloat() * 6f - 3f;
+        }
+    }
+
+    // channels biased towards 0 and 255 so the clamps are hit from both sides
+    private static int pixel(SplittableRandom random) {
+        int argb = random.nextInt(256) << 24;
+        for (int shift = 0; shift <= 16; shift += 8) {
+            int c;
+            switch (random.nextInt(4)) {
+                case 0:
+                    c = random.nextInt(4);
+                    break;
+                case 1:
+                    c = 252 + random.nextInt(4);
+                    break;
+                default:
+                    c = random.nextInt(256);
+            }
+            argb |= c << shift;
+        }
+        return argb;
+    }
+
+    private static void assertWithinUlps(String kernel, int length, float[] expected, float[] actual) {
+        for (int i = 0; i < expected.length; i++) {
+            int index = i;
+            assertEquals(0, ulps(expected[i], actual[i]), MAX_ULPS, () -> String.format("%s length %d index %d expected %s but was %s",
+                    kernel, length, index, expected[index], actual[index]));
+        }
+    }
+
+    private static long ulps(float a, float b) {
+        if (Float.isNaN(a) || Float.isNaN(b)) {
+            return Float.isNaN(a) && Float.isNaN(b) ? 0 : Long.MAX_VALUE;
+        }
+        return Math.abs((long) ordered(a) - ordered(b));
+    }
+
+    // maps floats onto a monotonic integer line so adjacent values differ by one
+    private static int ordered(float f) {
+        int bits = Float.floatToIntBits(f);
+        return bits < 0 ? Integer.MIN_VALUE - bits : bits;
+    }
+}